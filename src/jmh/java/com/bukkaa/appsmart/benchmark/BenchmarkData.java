@@ -0,0 +1,51 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.entity.TimeOrderedUuidGenerator;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Entities filled the way they come from the DB, shared by benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Customer customerWithProducts(int productsCount) {
+        Customer customer = new Customer();
+        customer.setId(TimeOrderedUuidGenerator.nextUuid());
+        customer.setTitle("Nike");
+        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setModifiedAt(Timestamp.from(Instant.now()));
+        customer.setProducts(IntStream.range(0, productsCount)
+                .mapToObj(i -> product(customer, i))
+                .collect(Collectors.toList()));
+        return customer;
+    }
+
+    static List<Customer> customers(int count, int productsCount) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> customerWithProducts(productsCount))
+                .collect(Collectors.toList());
+    }
+
+    static Product product(Customer customer, int i) {
+        Product product = new Product();
+        product.setId(TimeOrderedUuidGenerator.nextUuid());
+        product.setCustomer(customer);
+        product.setTitle("Air Max #" + i);
+        product.setDescription("Nike, Air Max model, the one with a visible air unit in the heel");
+        product.setPrice(new BigDecimal("800.55"));
+        product.setCreatedAt(Timestamp.from(Instant.now()));
+        product.setModifiedAt(Timestamp.from(Instant.now()));
+        return product;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bukkaa.appsmart.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Makes an in-memory DB answer like a remote one: every statement executed through a {@code jdbc:delayed:<url>}
+ * connection first waits for the {@code delayMillis} connection property, holding its thread and connection,
+ * then runs against {@code jdbc:<url>}.
+ */
+public final class DelayingDriver implements Driver {
+    static final String PREFIX = "jdbc:delayed:";
+    static final String DELAY_PROPERTY = "delayMillis";
+
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        properties.putAll(info);
+        long delayMillis = Long.parseLong((String) properties.remove(DELAY_PROPERTY));
+        Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), properties);
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Statement
+                    ? proxy((Class<?>) method.getReturnType(), result, delayingExecutes(delayMillis))
+                    : result;
+        });
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+
+    private static Handler delayingExecutes(long delayMillis) {
+        return (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                Thread.sleep(delayMillis);
+            }
+            return invoke(target, method, args);
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.invoke(target, method, args);
+        return type.cast(Proxy.newProxyInstance(DelayingDriver.class.getClassLoader(), new Class<?>[]{type}, invocationHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
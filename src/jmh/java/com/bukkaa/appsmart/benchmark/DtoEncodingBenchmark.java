@@ -0,0 +1,68 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.mapper.CustomerMapperImpl;
+import com.bukkaa.appsmart.mapper.ProductMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against CBOR and Smile, served on {@code Accept: application/cbor} and {@code application/x-jackson-smile}:
+ * encoding and decoding of a customer with products. Payload sizes are printed at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"0", "100", "1000"})
+    private int productsCount;
+
+    private ObjectMapper objectMapper;
+    private CustomerDto customer;
+    private byte[] encoded;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = builder(format).build();
+        CustomerMapperImpl customerMapper = new CustomerMapperImpl();
+        ReflectionTestUtils.setField(customerMapper, "productMapper", new ProductMapperImpl());
+        customer = customerMapper.toDtoWithProducts(BenchmarkData.customerWithProducts(productsCount));
+        encoded = objectMapper.writeValueAsBytes(customer);
+        System.out.printf("%n%s, %d products: %d bytes%n", format, productsCount, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public CustomerDto decode() throws IOException {
+        return objectMapper.readValue(encoded, CustomerDto.class);
+    }
+
+
+    private static Jackson2ObjectMapperBuilder builder(String format) {
+        switch (format) {
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile();
+            default:
+                return Jackson2ObjectMapperBuilder.json();
+        }
+    }
+}
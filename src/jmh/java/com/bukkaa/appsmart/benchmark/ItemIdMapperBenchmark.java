@@ -0,0 +1,37 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.entity.TimeOrderedUuidGenerator;
+import com.bukkaa.appsmart.mapper.ItemIdMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemIdMapperBenchmark {
+
+    private UUID id;
+    private String stringId;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        id = TimeOrderedUuidGenerator.nextUuid();
+        stringId = id.toString();
+    }
+
+    @Benchmark
+    public String uuidToString() {
+        return ItemIdMapper.uuidToString(id);
+    }
+
+    @Benchmark
+    public UUID stringToUuid() {
+        return ItemIdMapper.stringToUuid(stringId);
+    }
+}
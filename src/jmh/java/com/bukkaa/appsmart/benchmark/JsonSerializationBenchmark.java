@@ -0,0 +1,62 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.mapper.CustomerMapperImpl;
+import com.bukkaa.appsmart.mapper.ProductMapperImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of response DTOs, timestamps formatted with {@code dd-MM-yyyy HH:mm:ss}.
+ * The object mapper is built the same way Spring Boot builds its default one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ProductDto product;
+
+
+    @State(Scope.Benchmark)
+    public static class CustomerState {
+
+        @Param({"0", "100", "1000"})
+        private int productsCount;
+
+        private CustomerDto customer;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            CustomerMapperImpl customerMapper = new CustomerMapperImpl();
+            ReflectionTestUtils.setField(customerMapper, "productMapper", new ProductMapperImpl());
+            customer = customerMapper.toDtoWithProducts(BenchmarkData.customerWithProducts(productsCount));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        product = new ProductMapperImpl().toDto(BenchmarkData.product(null, 0));
+    }
+
+    @Benchmark
+    public byte[] customerToJson(CustomerState state) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(state.customer);
+    }
+
+    @Benchmark
+    public byte[] productToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+}
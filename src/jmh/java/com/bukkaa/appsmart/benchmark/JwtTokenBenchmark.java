@@ -0,0 +1,55 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.security.JwtTokenServiceImpl;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done by the security filter: separate validation and username extraction (two parses)
+ * vs claims parsed once and cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+    private JwtTokenServiceImpl tokenService;
+    private String token;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenService = new JwtTokenServiceImpl();
+        ReflectionTestUtils.setField(tokenService, "secret", "theSecretKey");
+        ReflectionTestUtils.setField(tokenService, "expirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(tokenService, "cacheSize", 10_000L);
+        tokenService.initVerifiedTokensCache();
+        token = tokenService.generateToken("benchmark");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenService.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return tokenService.extractUsername(token);
+    }
+
+    @Benchmark
+    public String validateAndExtractUsername() {
+        return tokenService.validateToken(token) ? tokenService.extractUsername(token) : null;
+    }
+
+    @Benchmark
+    public Claims parseClaimsCached() {
+        return tokenService.parseClaims(token);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.UpdateProductDto;
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.mapper.CustomerMapperImpl;
+import com.bukkaa.appsmart.mapper.ProductMapper;
+import com.bukkaa.appsmart.mapper.ProductMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct mappers on customers with large product lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "1000", "10000"})
+    private int productsCount;
+
+    private CustomerMapperImpl customerMapper;
+    private ProductMapper productMapper;
+
+    private Customer customer;
+    private List<Customer> customersPage;
+    private Product product;
+    private UpdateProductDto update;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productMapper = new ProductMapperImpl();
+        customerMapper = new CustomerMapperImpl();
+        ReflectionTestUtils.setField(customerMapper, "productMapper", productMapper);
+
+        customer = BenchmarkData.customerWithProducts(productsCount);
+        customersPage = BenchmarkData.customers(PAGE_SIZE, productsCount);
+        product = customer.getProducts().isEmpty() ? BenchmarkData.product(customer, 0) : customer.getProducts().get(0);
+        update = UpdateProductDto.builder()
+                .title("Air Max 90")
+                .price(new BigDecimal("900.00"))
+                .build();
+    }
+
+    @Benchmark
+    public CustomerDto customerToDto() {
+        return customerMapper.toDto(customer);
+    }
+
+    @Benchmark
+    public CustomerDto customerToDtoWithProducts() {
+        return customerMapper.toDtoWithProducts(customer);
+    }
+
+    @Benchmark
+    public List<CustomerDto> customersPageToDtos() {
+        return customerMapper.toDtos(customersPage);
+    }
+
+    @Benchmark
+    public List<CustomerDto> customersPageToDtosWithProducts() {
+        return customerMapper.toDtosWithProducts(customersPage);
+    }
+
+    @Benchmark
+    public List<ProductDto> productsToDtos() {
+        return productMapper.toDtos(customer.getProducts());
+    }
+
+    @Benchmark
+    public Product productMerge() {
+        return productMapper.merge(product, update);
+    }
+}
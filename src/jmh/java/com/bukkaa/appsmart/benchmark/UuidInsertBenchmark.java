@@ -0,0 +1,85 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.entity.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput into a uuid primary key and the resulting index size, random (v4) vs time-ordered (v7) ids.
+ * Needs a PostgreSQL instance: {@code BENCHMARK_JDBC_URL}, {@code BENCHMARK_JDBC_USER} and {@code BENCHMARK_JDBC_PASSWORD}
+ * environment variables, defaults match the _application.yml_. Index and table sizes are printed after every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class UuidInsertBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"random", "timeOrdered"})
+    private String generator;
+
+    private Supplier<UUID> ids;
+    private Connection connection;
+    private PreparedStatement insert;
+    private String table;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ids = "random".equals(generator) ? UUID::randomUUID : TimeOrderedUuidGenerator::nextUuid;
+        table = "uuid_benchmark_" + generator.toLowerCase();
+
+        connection = DriverManager.getConnection(
+                env("BENCHMARK_JDBC_URL", "jdbc:postgresql://localhost:5432/AppSmart?reWriteBatchedInserts=true"),
+                env("BENCHMARK_JDBC_USER", "postgres"),
+                env("BENCHMARK_JDBC_PASSWORD", "root"));
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (id uuid primary key, title varchar(255) not null)");
+        }
+        connection.commit();
+        insert = connection.prepareStatement("insert into " + table + " (id, title) values (?, ?)");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, "Product #" + i);
+            insert.addBatch();
+        }
+        int[] inserted = insert.executeBatch();
+        connection.commit();
+        return inserted;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet sizes = statement.executeQuery(
+                     "select count(*), pg_relation_size('" + table + "_pkey'), pg_relation_size('" + table + "') from " + table)) {
+            sizes.next();
+            System.out.printf("%n%s: %d rows, primary key index %d KiB, table %d KiB%n",
+                              generator, sizes.getLong(1), sizes.getLong(2) / 1024, sizes.getLong(3) / 1024);
+            statement.execute("drop table " + table);
+        }
+        connection.commit();
+        insert.close();
+        connection.close();
+    }
+
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
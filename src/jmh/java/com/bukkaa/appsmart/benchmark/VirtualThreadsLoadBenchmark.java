@@ -0,0 +1,119 @@
+package com.bukkaa.appsmart.benchmark;
+
+import com.bukkaa.appsmart.Application;
+import com.bukkaa.appsmart.concurrency.VirtualThreads;
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.manager.CustomerManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole request path, platform vs virtual request threads (the latter needs Java 21+):
+ * {@value #CLIENTS} clients call {@code GET /api/v1/customers} over HTTP, each request going through the filters,
+ * the controller and a manager read with the DB concurrency limit, against the application started in-process
+ * on an in-memory H2 database. Caching and coalescing are off, so that every request reads the DB.
+ * <p>
+ * Every statement waits {@code dbDelayMillis} first, through {@link DelayingDriver}, as if the DB were remote.
+ * The Hikari pool and the DB concurrency limit are sized to the clients, above Tomcat's 200 platform threads,
+ * so that requests wait for the DB rather than for a permit and only the thread model caps concurrent requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(VirtualThreadsLoadBenchmark.CLIENTS)
+@Fork(1)
+public class VirtualThreadsLoadBenchmark {
+    static final int CLIENTS = 400;
+    private static final int CUSTOMERS = 20;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    /**
+     * A remote DB, and one slow enough for the request threads rather than the CPU to bound throughput.
+     */
+    @Param({"20", "1000"})
+    public long dbDelayMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && VirtualThreads.newExecutor().isEmpty()) {
+            throw new IllegalStateException("Virtual threads need Java 21+");
+        }
+        // as command line arguments, which take precedence over the application.yml
+        context = new SpringApplicationBuilder(Application.class)
+                .initializers(context -> context.getBeanFactory().registerSingleton("mainClassesOnlyFilter", new MainClassesOnlyFilter()))
+                .run("--server.port=0",
+                     "--spring.datasource.url=" + DelayingDriver.PREFIX + "h2:mem:benchmark-db;DB_CLOSE_DELAY=-1",
+                     "--spring.datasource.driverClassName=" + DelayingDriver.class.getName(),
+                     "--spring.datasource.hikari.data-source-properties." + DelayingDriver.DELAY_PROPERTY + "=" + dbDelayMillis,
+                     "--spring.datasource.hikari.maximum-pool-size=" + CLIENTS,
+                     "--appsmart.datasource.concurrency.limit=" + CLIENTS,
+                     "--spring.datasource.username=benchmark",
+                     "--spring.datasource.password=benchmark",
+                     "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                     "--spring.jpa.hibernate.ddl-auto=update",
+                     "--appsmart.web.virtual-threads.enabled=" + virtual,
+                     "--appsmart.coalescing.enabled=false",
+                     "--appsmart.logging.access.enabled=false",
+                     "--logging.level.root=WARN");
+
+        CustomerManager manager = context.getBean(CustomerManager.class);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer();
+            customer.setTitle("Customer #" + i);
+            manager.createCustomer(customer);
+        }
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/customers?page=0&size=" + CUSTOMERS))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] listCustomers() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+
+
+    /**
+     * Benchmarks share the classpath with tests, this keeps test configurations out of the component scan.
+     */
+    private static final class MainClassesOnlyFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) throws IOException {
+            return metadataReader.getResource().getURL().getPath().contains("/test-classes/");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bukkaa.appsmart.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Cache advice is applied outside coalescing, the DB concurrency limit and transactions,
+ * so a cache hit is served before any of them.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 3)
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String PRODUCTS = "products";
+    public static final String CUSTOMERS_COUNT = "customersCount";
+    public static final String CUSTOMER_PRODUCTS_COUNT = "customerProductsCount";
+    public static final String CUSTOMER_RESPONSES = "customerResponses";
+    public static final String PRODUCT_RESPONSES = "productResponses";
+
+
+    /**
+     * Puts and evictions are deferred till the surrounding transaction commits,
+     * so a concurrent reader can't put the pre-commit state back into the cache.
+     */
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        properties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).build()));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,54 @@
+package com.bukkaa.appsmart.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("appsmart.cache")
+public class CacheProperties {
+
+    /**
+     * Caffeine spec (e.g. {@code maximumSize=1000,expireAfterWrite=30s,recordStats}) per cache name.
+     */
+    private Map<String, String> specs = new LinkedHashMap<>();
+
+    /**
+     * Bounds of Hibernate second-level cache regions per region name.
+     */
+    private Map<String, EntityRegion> entityRegions = new LinkedHashMap<>();
+
+    /**
+     * Encoded single customer and product responses, kept in the caches named in {@code specs}.
+     */
+    private Responses responses = new Responses();
+
+
+    @Data
+    public static class EntityRegion {
+
+        private long maximumSize = 10_000;
+
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Responses {
+
+        private boolean enabled = true;
+
+        /**
+         * Distinct {@code Accept} headers a single entity's responses are kept for, further ones aren't cached.
+         */
+        private int maxVariants = 4;
+
+        /**
+         * Smaller bodies are never sent gzip-compressed, even if the client accepts it.
+         */
+        private DataSize gzipMinSize = DataSize.ofKilobytes(1);
+    }
+}
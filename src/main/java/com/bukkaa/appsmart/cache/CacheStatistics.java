@@ -0,0 +1,84 @@
+package com.bukkaa.appsmart.cache;
+
+import com.bukkaa.appsmart.dto.CacheStatsDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+public class CacheStatistics {
+
+    /**
+     * Distinguishes Hibernate second-level cache regions from application caches of the same name.
+     */
+    public static final String ENTITY_REGION_PREFIX = "entity:";
+
+    private final CacheManager cacheManager;
+    private final javax.cache.CacheManager entityCacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+
+    public List<CacheStatsDto> collect() {
+        Stream<CacheStatsDto> caches = cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(this::collect);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Stream<CacheStatsDto> entityRegions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> collect(region, statistics.getDomainDataRegionStatistics(region)));
+
+        return Stream.concat(caches, entityRegions)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private CacheStatsDto collect(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache)) {
+            return null;
+        }
+        Cache<?, ?> nativeCache = (Cache<?, ?>) cache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return CacheStatsDto.builder()
+                .name(name)
+                .size(nativeCache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    /**
+     * Hits and misses are counted by Hibernate, which doesn't see evictions: they're reported as {@code -1}.
+     */
+    private CacheStatsDto collect(String region, CacheRegionStatistics stats) {
+        javax.cache.Cache<?, ?> cache = entityCacheManager.getCache(region);
+        if (cache == null) {
+            return null;
+        }
+        long requests = stats.getHitCount() + stats.getMissCount();
+        return CacheStatsDto.builder()
+                .name(ENTITY_REGION_PREFIX + region)
+                .size(cache.unwrap(Cache.class).estimatedSize())
+                .hitCount(stats.getHitCount())
+                .missCount(stats.getMissCount())
+                .hitRate(requests == 0 ? 1.0 : (double) stats.getHitCount() / requests)
+                .evictionCount(-1)
+                .build();
+    }
+}
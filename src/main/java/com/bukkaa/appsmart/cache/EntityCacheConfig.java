@@ -0,0 +1,60 @@
+package com.bukkaa.appsmart.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: customers, products and customers' product collections are shared
+ * between transactions, so lookups by id don't hit the DB while cached.
+ * <p>
+ * Regions are Caffeine caches behind JCache, bounded as configured in {@code appsmart.cache.entity-regions}.
+ * A region missing there fails the startup instead of being created unbounded.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class EntityCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(CacheProperties properties) {
+        // the provider shares managers by URI, each application context gets its own
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("appsmart-entities-" + UUID.randomUUID()), getClass().getClassLoader());
+        properties.getEntityRegions().forEach((region, bounds) -> cacheManager.createCache(region, configuration(bounds)));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+            // products saved with another customer or removed don't leave stale Customer.products collections
+            hibernateProperties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+
+    private static CaffeineConfiguration<Object, Object> configuration(CacheProperties.EntityRegion bounds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(bounds.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(bounds.getExpireAfterWrite().toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bukkaa.appsmart.cache;
+
+import com.bukkaa.appsmart.entity.Customer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single place where managers' write paths invalidate cached reads.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+
+    public void evictCustomer(UUID customerId) {
+        cache(CacheConfig.CUSTOMERS).ifPresent(cache -> cache.evict(customerId));
+        cache(CacheConfig.CUSTOMER_RESPONSES).ifPresent(cache -> cache.evict(customerId));
+    }
+
+    public void evictCustomerOf(Customer customer) {
+        if (customer != null && customer.getId() != null) {
+            evictCustomer(customer.getId());
+        }
+    }
+
+    public void evictProduct(UUID productId) {
+        cache(CacheConfig.PRODUCTS).ifPresent(cache -> cache.evict(productId));
+        cache(CacheConfig.PRODUCT_RESPONSES).ifPresent(cache -> cache.evict(productId));
+    }
+
+
+    private Optional<Cache> cache(String name) {
+        return Optional.ofNullable(cacheManager.getCache(name));
+    }
+}
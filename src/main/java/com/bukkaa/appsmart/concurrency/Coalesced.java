@@ -0,0 +1,17 @@
+package com.bukkaa.appsmart.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose concurrent calls with equal arguments may share a single execution and its result,
+ * see {@link CoalescingAspect}. Callers get the same result instance, so they must not change it.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
@@ -0,0 +1,102 @@
+package com.bukkaa.appsmart.concurrency;
+
+import com.bukkaa.appsmart.metrics.MetricNames;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Lets concurrent calls of a {@link Coalesced} method with equal arguments share one execution: the first call runs
+ * the method, the ones arriving while it's in flight wait for its result (or exception) instead of querying the DB again.
+ * The in-flight entry is removed as soon as the call completes, so results are never reused afterwards.
+ * Waiting calls get the very same result instance, which is why manager results are treated as read-only,
+ * just like the shared instances handed out by the cache.
+ * <p>
+ * Applied inside the cache, so that only cache misses are coalesced, and outside the DB concurrency limit
+ * and transactions, so waiting calls take neither a turn nor a connection.
+ * Calls made within a transaction aren't coalesced, as they must see the transaction's own state.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@ConditionalOnProperty(prefix = "appsmart.coalescing", name = "enabled", matchIfMissing = true)
+public class CoalescingAspect {
+
+    private final ConcurrentMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, Counter> counters = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+
+    @Around("@annotation(com.bukkaa.appsmart.concurrency.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        CallKey key = new CallKey(method, joinPoint.getArgs());
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leading = inFlight.putIfAbsent(key, call);
+        if (leading != null) {
+            counters.computeIfAbsent(method, m -> counter(joinPoint)).increment();
+            return awaitResult(leading);
+        }
+
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    int inFlightCalls() {
+        return inFlight.size();
+    }
+
+
+    private Counter counter(ProceedingJoinPoint joinPoint) {
+        return Counter.builder(MetricNames.COALESCED_CALLS)
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry);
+    }
+
+    private static Object awaitResult(CompletableFuture<Object> leading) throws Throwable {
+        try {
+            return leading.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Arrays are compared by their elements, see {@link Value}.
+     */
+    @Value
+    private static class CallKey {
+        Method method;
+        Object[] args;
+    }
+}
@@ -0,0 +1,31 @@
+package com.bukkaa.appsmart.concurrency;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads (JDK 21+) while compiling for Java 11.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return executor starting a new virtual thread per task, empty if the running JDK has no virtual threads
+     */
+    public static Optional<ExecutorService> newExecutor() {
+        try {
+            return Optional.of((ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke());
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return Optional.empty();
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Couldn't create virtual thread executor", ex);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bukkaa.appsmart.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Handles requests on virtual threads when {@code appsmart.web.virtual-threads.enabled} is set and the JDK supports them (21+),
+ * so requests waiting for the DB don't hold platform threads and {@code server.tomcat.threads.max} no longer caps concurrency.
+ * Concurrent DB work stays bounded by {@code appsmart.datasource.concurrency}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "appsmart.web.virtual-threads", name = "enabled")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> VirtualThreads.newExecutor().ifPresentOrElse(
+                executor -> {
+                    protocolHandler.setExecutor(executor);
+                    log.info("Requests are handled on virtual threads");
+                },
+                () -> log.warn("Virtual threads are enabled but not supported by Java {}, requests are handled on platform threads",
+                               Runtime.version().feature()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.bukkaa.appsmart.controller;
+
+import com.bukkaa.appsmart.cache.CacheStatistics;
+import com.bukkaa.appsmart.dto.CacheStatsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/caches")
+public class CacheController {
+
+    private static final PayloadLogger payloadLog = PayloadLogger.of(CacheController.class);
+
+    private final CacheStatistics cacheStatistics;
+
+    @GetMapping(produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public List<CacheStatsDto> getCacheStats() {
+        log.info("getCacheStats <<< ");
+
+        List<CacheStatsDto> stats = cacheStatistics.collect();
+
+        log.info("getCacheStats >>> caches = {}", stats.size());
+        payloadLog.log("getCacheStats", ">>> stats = {}", stats);
+        return stats;
+    }
+}
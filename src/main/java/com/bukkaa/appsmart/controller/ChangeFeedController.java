@@ -0,0 +1,54 @@
+package com.bukkaa.appsmart.controller;
+
+import com.bukkaa.appsmart.dto.ChangeFeedPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.manager.ChangeFeedManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+/**
+ * Feeds of customers and products changed since a given time or watermark, hard-deleted ones included.
+ * A page without changes is still a success: it holds the watermark to come back with.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1")
+public class ChangeFeedController {
+
+    private final ChangeFeedManager manager;
+
+
+    @GetMapping("/customers/changes")
+    public ResponseEntity<ChangeFeedPage<CustomerDto>> getCustomerChanges(@RequestParam(required = false)
+                                                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+                                                                          @RequestParam(required = false) String watermark,
+                                                                          @RequestParam int size) {
+        log.info("getCustomerChanges <<< since = {}, watermark = '{}', size = {}", since, watermark, size);
+        ChangeFeedPage<CustomerDto> changes = manager.getCustomerChanges(since, watermark, size);
+        log.info("getCustomerChanges >>> found = {}, hasMore = {}, watermark = '{}'",
+                 changes.getItems().size(), changes.isHasMore(), changes.getWatermark());
+        return ResponseEntity.ok(changes);
+    }
+
+    @GetMapping("/products/changes")
+    public ResponseEntity<ChangeFeedPage<ProductDto>> getProductChanges(@RequestParam(required = false)
+                                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+                                                                        @RequestParam(required = false) String watermark,
+                                                                        @RequestParam int size) {
+        log.info("getProductChanges <<< since = {}, watermark = '{}', size = {}", since, watermark, size);
+        ChangeFeedPage<ProductDto> changes = manager.getProductChanges(since, watermark, size);
+        log.info("getProductChanges >>> found = {}, hasMore = {}, watermark = '{}'",
+                 changes.getItems().size(), changes.isHasMore(), changes.getWatermark());
+        return ResponseEntity.ok(changes);
+    }
+}
@@ -1,7 +1,11 @@
 package com.bukkaa.appsmart.controller;
 
+import com.bukkaa.appsmart.datasource.DbConcurrencyLimitExceededException;
+import com.bukkaa.appsmart.manager.VersionMismatchException;
 import io.jsonwebtoken.MalformedJwtException;
 import org.hibernate.PropertyValueException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -24,4 +28,24 @@ public class ControllerExceptionHandler {
     public ResponseEntity<String> handleMalformedJwtException(MalformedJwtException ex) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
     }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleVersionMismatchException(VersionMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleDbConcurrencyLimitExceededException(DbConcurrencyLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleTaskRejectedException(TaskRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
 }
@@ -1,91 +1,284 @@
 package com.bukkaa.appsmart.controller;
 
+import com.bukkaa.appsmart.dto.BatchGetEntry;
+import com.bukkaa.appsmart.dto.CursorPage;
 import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.CustomerRemovalManager;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
+import com.bukkaa.appsmart.repository.EntityVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
-@RequestMapping("/api/v1/customers")
+@RequestMapping("/api/v1")
 public class CustomerController {
 
+    private static final String EXPAND_PRODUCTS = "products";
+    private static final String REMOVALS_PATH = "/api/v1/customers/removals/";
+    private static final PayloadLogger payloadLog = PayloadLogger.of(CustomerController.class);
+
     private final CustomerManager manager;
+    private final CustomerRemovalManager removalManager;
     private final CustomerMapper mapper;
+    private final ObjectMapper objectMapper;
 
 
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
-                 produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(path = "/customers",
+                 consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                 produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
     public ResponseEntity<CustomerDto> createCustomer(@RequestBody(required = false) CustomerDto dto) {
-        log.info("createCustomer <<< dto = {}", dto);
+        log.info("createCustomer <<< ");
+        payloadLog.log("createCustomer", "<<< dto = {}", dto);
         if (dto == null) {
             log.warn("createCustomer >>> Error: no data received");
             return ResponseEntity.badRequest().build();
         }
         Customer customer = manager.createCustomer(mapper.toModel(dto));
-        log.info("createCustomer >>> customer = {}", customer);
+        log.info("createCustomer >>> customerId = '{}'", customer.getId());
+        payloadLog.log("createCustomer", ">>> customer = {}", customer);
         return ResponseEntity.ok(mapper.toDto(customer));
     }
 
-    @GetMapping(path = "/{customerId}",
-                produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<CustomerDto> findCustomer(@PathVariable String customerId) {
-        log.info("findCustomer <<< customerId = '{}'", customerId);
+    /**
+     * Answers 304 to a plain (not expanded) request whose {@code If-None-Match} holds the current entity tag,
+     * checking just the customer's version instead of loading it.
+     */
+    @GetMapping(path = "/customers/{customerId}",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<CustomerDto> findCustomer(@PathVariable String customerId,
+                                                    @RequestParam(required = false) List<String> expand,
+                                                    @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("findCustomer <<< customerId = '{}', expand = {}", customerId, expand);
+
+        boolean withProducts = expandsProducts(expand);
+        if (!withProducts && ifNoneMatch != null) {
+            Optional<EntityVersion> versionOpt = manager.findCustomerVersion(customerId);
+            if (versionOpt.isEmpty()) {
+                log.info("findCustomer >>> customerId = '{}', found = false", customerId);
+                return ResponseEntity.notFound().build();
+            }
+            EntityVersion version = versionOpt.get();
+            if (EntityTags.matches(ifNoneMatch, version.getVersion())) {
+                log.info("findCustomer >>> customerId = '{}', not modified", customerId);
+                return EntityTags.notModified(version.getVersion(), version.getLastModified());
+            }
+        }
+        Optional<Customer> customerOpt = withProducts
+                                            ? manager.findCustomerWithProducts(customerId)
+                                            : manager.findCustomer(customerId);
+
+        log.info("findCustomer >>> customerId = '{}', found = {}", customerId, customerOpt.isPresent());
+        if (customerOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Customer customer = customerOpt.get();
+        payloadLog.log("findCustomer", ">>> customer = {}", customer);
+        if (withProducts) {
+            return ResponseEntity.ok(mapper.toDtoWithProducts(customer));
+        }
+        return EntityTags.ok(customer.getVersion(), lastModifiedOf(customer)).body(mapper.toDto(customer));
+    }
 
-        Optional<Customer> customerOpt = manager.findCustomer(customerId);
+    @PostMapping(path = "/customers:batchGet",
+                 consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                 produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<List<BatchGetEntry<CustomerDto>>> findCustomers(@RequestBody(required = false) List<String> customerIds) {
+        log.info("findCustomers <<< requested = {}", customerIds == null ? 0 : customerIds.size());
+        if (customerIds == null || customerIds.isEmpty()) {
+            log.warn("findCustomers >>> Error: no ids received");
+            return ResponseEntity.badRequest().build();
+        }
+        List<Optional<Customer>> customers = manager.findCustomers(customerIds);
 
-        log.info("findCustomer >>> customer = {}", customerOpt.isPresent() ? customerOpt.get() : "not found");
-        return ResponseEntity.of(customerOpt.map(mapper::toDto));
+        List<BatchGetEntry<CustomerDto>> entries = IntStream.range(0, customerIds.size())
+                .mapToObj(i -> BatchGetEntry.of(customerIds.get(i), customers.get(i).map(mapper::toDto)))
+                .collect(Collectors.toList());
+        log.info("findCustomers >>> requested = {}, found = {}", customerIds.size(), entries.stream().filter(BatchGetEntry::isFound).count());
+        return ResponseEntity.ok(entries);
     }
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/customers",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
     public ResponseEntity<List<CustomerDto>> getAllCustomersPageable(@RequestParam int page,
-                                                                     @RequestParam int size) {
-        log.info("getAllCustomers <<< ");
+                                                                     @RequestParam int size,
+                                                                     @RequestParam(required = false) List<String> expand) {
+        log.info("getAllCustomers <<< page = {}, size = {}, expand = {}", page, size, expand);
 
-        Page<Customer> customersPage = manager.getAllCustomersPageable(page, size);
-        if (customersPage.isEmpty() || page > customersPage.getTotalPages()) {
+        boolean withProducts = expandsProducts(expand);
+        Slice<CustomerDto> customersSlice = withProducts
+                                            ? manager.getAllCustomersSliceWithProducts(page, size).map(mapper::toDtoWithProducts)
+                                            : manager.getAllCustomerDtosSlice(page, size);
+        if (!customersSlice.hasContent()) {
             log.info("getAllCustomers >>> no customers found!");
             return ResponseEntity.notFound().build();
         }
 
-        log.info("getAllCustomers >>> customers = {}", customersPage);
-        return ResponseEntity.ok(mapper.toDtos(customersPage.getContent()));
+        log.info("getAllCustomers >>> found = {}, hasNext = {}", customersSlice.getNumberOfElements(), customersSlice.hasNext());
+        payloadLog.log("getAllCustomers", ">>> customers = {}", customersSlice.getContent());
+        return ResponseEntity.ok()
+                .header(ResponseHeaders.HAS_NEXT, String.valueOf(customersSlice.hasNext()))
+                .body(customersSlice.getContent());
     }
 
-    @PutMapping(path = "/{customerId}",
-                consumes = MediaType.APPLICATION_JSON_VALUE,
-                produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/customers/count",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Long> countCustomers() {
+        log.info("countCustomers <<< ");
+        long count = manager.countCustomers();
+        log.info("countCustomers >>> count = {}", count);
+        return ResponseEntity.ok(count);
+    }
+
+    @GetMapping(path = "/customers/seek",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<CursorPage<CustomerDto>> getAllCustomersAfter(@RequestParam(required = false) String cursor,
+                                                                        @RequestParam int size) {
+        log.info("getAllCustomersAfter <<< cursor = '{}', size = {}", cursor, size);
+
+        CursorPage<CustomerDto> customersPage = manager.getAllCustomerDtosAfter(cursor, size);
+        if (customersPage.isEmpty()) {
+            log.info("getAllCustomersAfter >>> no customers found!");
+            return ResponseEntity.notFound().build();
+        }
+
+        log.info("getAllCustomersAfter >>> found = {}, nextCursor = '{}'", customersPage.getItems().size(), customersPage.getNextCursor());
+        payloadLog.log("getAllCustomersAfter", ">>> customers = {}", customersPage.getItems());
+        return ResponseEntity.ok(customersPage);
+    }
+
+    /**
+     * Streams all customers with their products, one customer per line.
+     */
+    @GetMapping(path = "/customers/export",
+                produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        log.info("exportCustomers <<< ");
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                long exported = manager.exportCustomersWithProducts(customer -> {
+                    try {
+                        writer.write(mapper.toDtoWithProducts(customer));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                log.info("exportCustomers >>> exported = {}", exported);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Applies the update only if the customer still has the version from {@code If-Match}, answering 412 otherwise.
+     * Without {@code If-Match} the customer is read, merged and saved, answering 409 if it's concurrently changed.
+     */
+    @PutMapping(path = "/customers/{customerId}",
+                consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
     public ResponseEntity<CustomerDto> updateCustomer(@PathVariable String customerId,
+                                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                       @RequestBody(required = false) UpdateCustomerDto updateDto) {
-        log.info("updateCustomer <<< customerId = '{}', update = {}", customerId, updateDto);
+        log.info("updateCustomer <<< customerId = '{}'", customerId);
+        payloadLog.log("updateCustomer", "<<< update = {}", updateDto);
         if (updateDto == null) {
             log.warn("updateCustomer >>> Error: no data received");
             return ResponseEntity.badRequest().build();
         }
-        Customer customer = manager.updateCustomer(customerId, updateDto);
+        OptionalLong expectedVersion = ifMatch == null ? OptionalLong.empty() : EntityTags.expectedVersion(ifMatch);
+        Customer customer = expectedVersion.isPresent()
+                ? manager.updateCustomer(customerId, expectedVersion.getAsLong(), updateDto)
+                : manager.updateCustomer(customerId, updateDto);
 
-        log.info("updateCustomer >>> updated = {}", customer);
-        return ResponseEntity.ok(mapper.toDto(customer));
+        log.info("updateCustomer >>> customerId = '{}'", customerId);
+        payloadLog.log("updateCustomer", ">>> updated = {}", customer);
+        return EntityTags.ok(customer.getVersion(), lastModifiedOf(customer)).body(mapper.toDto(customer));
     }
 
-    @DeleteMapping("/{customerId}")
-    @ResponseStatus(HttpStatus.OK)
-    public void removeCustomer(@PathVariable String customerId) {
-        log.info("removeCustomer <<< customerId = '{}'", customerId);
+    @PutMapping(path = "/customers:markDeleted",
+                consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Integer> markCustomersDeleted(@RequestBody(required = false) List<String> customerIds) {
+        log.info("markCustomersDeleted <<< requested = {}", customerIds == null ? 0 : customerIds.size());
+        if (customerIds == null || customerIds.isEmpty()) {
+            log.warn("markCustomersDeleted >>> Error: no ids received");
+            return ResponseEntity.badRequest().build();
+        }
+        int updated = manager.markCustomersDeleted(customerIds);
+        log.info("markCustomersDeleted >>> requested = {}, updated = {}", customerIds.size(), updated);
+        return ResponseEntity.ok(updated);
+    }
+
+    /**
+     * With {@code async=true} answers 202 right away and removes the customer's products chunk by chunk
+     * in the background, the progress is available at the returned {@code Location}.
+     */
+    @DeleteMapping(path = "/customers/{customerId}",
+                   produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<CustomerRemovalDto> removeCustomer(@PathVariable String customerId,
+                                                             @RequestParam(defaultValue = "false") boolean async) {
+        log.info("removeCustomer <<< customerId = '{}', async = {}", customerId, async);
+        if (async) {
+            CustomerRemovalDto removal = removalManager.startCustomerRemoval(customerId);
+            log.info("removeCustomer >>> removal = '{}', status = {}", removal.getId(), removal.getStatus());
+            return ResponseEntity.accepted()
+                    .location(URI.create(REMOVALS_PATH + removal.getId()))
+                    .body(removal);
+        }
         manager.removeCustomer(customerId);
         log.info("removeCustomer >>> success");
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping(path = "/customers/removals/{removalId}",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<CustomerRemovalDto> findCustomerRemoval(@PathVariable String removalId) {
+        log.info("findCustomerRemoval <<< removalId = '{}'", removalId);
+
+        Optional<CustomerRemovalDto> removalOpt = removalManager.findCustomerRemoval(removalId);
+
+        log.info("findCustomerRemoval >>> removalId = '{}', found = {}", removalId, removalOpt.isPresent());
+        if (removalOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(removalOpt.get());
+    }
+
+
+    private static Timestamp lastModifiedOf(Customer customer) {
+        return customer.getModifiedAt() != null ? customer.getModifiedAt() : customer.getCreatedAt();
+    }
+
+    private static boolean expandsProducts(List<String> expand) {
+        return expand != null && expand.contains(EXPAND_PRODUCTS);
     }
 }
@@ -0,0 +1,17 @@
+package com.bukkaa.appsmart.controller;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings DTOs are exchanged in. JSON stays the default, CBOR and Smile are compact binary encodings
+ * of the same documents, cheaper to produce and parse for service-to-service callers.
+ */
+public final class DtoMediaTypes {
+
+    public static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private DtoMediaTypes() {
+    }
+}
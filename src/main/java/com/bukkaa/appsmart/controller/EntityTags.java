@@ -0,0 +1,82 @@
+package com.bukkaa.appsmart.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.Timestamp;
+import java.util.OptionalLong;
+
+/**
+ * Strong entity tags of single customer and product responses, holding the entity's version.
+ */
+final class EntityTags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch value of the {@code If-None-Match} request header, a comma-separated list of tags or {@code *}
+     */
+    static boolean matches(String ifNoneMatch, long version) {
+        return matches(ifNoneMatch, of(version));
+    }
+
+    /**
+     * @param etag entity tag of the current representation, as sent in the {@code ETag} header
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(ANY) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param ifMatch value of the {@code If-Match} request header, a single strong tag or {@code *}
+     * @return the version the entity is expected to have, or empty for {@code *} matching any version
+     */
+    static OptionalLong expectedVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals(ANY)) {
+            return OptionalLong.empty();
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must hold a single strong entity tag!");
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(tag.substring(1, tag.length() - 1)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match must hold a single strong entity tag!");
+        }
+    }
+
+    static ResponseEntity.BodyBuilder ok(long version, Timestamp lastModified) {
+        return withValidators(ResponseEntity.ok(), version, lastModified);
+    }
+
+    static <T> ResponseEntity<T> notModified(long version, Timestamp lastModified) {
+        return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version, lastModified).build();
+    }
+
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, long version, Timestamp lastModified) {
+        builder.eTag(of(version));
+        return lastModified == null ? builder : builder.lastModified(lastModified.getTime());
+    }
+}
@@ -0,0 +1,35 @@
+package com.bukkaa.appsmart.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs request and response payloads at DEBUG into a logger per endpoint, named {@code <controller class>.<endpoint>}.
+ * Payloads are off by default and are turned on for a single endpoint or for a whole controller with logger levels, e.g.
+ * {@code logging.level.com.bukkaa.appsmart.controller.CustomerController.findCustomer=DEBUG}.
+ * Payloads are not formatted at all while their endpoint logger is disabled.
+ */
+final class PayloadLogger {
+
+    private final String controllerName;
+    private final Map<String, Logger> endpointLoggers = new ConcurrentHashMap<>();
+
+
+    private PayloadLogger(String controllerName) {
+        this.controllerName = controllerName;
+    }
+
+    static PayloadLogger of(Class<?> controllerClass) {
+        return new PayloadLogger(controllerClass.getName());
+    }
+
+    void log(String endpoint, String format, Object payload) {
+        Logger logger = endpointLoggers.computeIfAbsent(endpoint, name -> LoggerFactory.getLogger(controllerName + "." + name));
+        if (logger.isDebugEnabled()) {
+            logger.debug(endpoint + " " + format, payload);
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package com.bukkaa.appsmart.controller;
 
+import com.bukkaa.appsmart.dto.BatchGetEntry;
+import com.bukkaa.appsmart.dto.CursorPage;
 import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Product;
 import com.bukkaa.appsmart.manager.ProductManager;
 import com.bukkaa.appsmart.mapper.ProductMapper;
+import com.bukkaa.appsmart.repository.EntityVersion;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @RestController
@@ -21,63 +41,245 @@ import java.util.Optional;
 @RequestMapping("/api/v1")
 public class ProductController {
 
+    private static final PayloadLogger payloadLog = PayloadLogger.of(ProductController.class);
+
     private final ProductManager manager;
     private final ProductMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final List<AbstractJackson2HttpMessageConverter> jacksonConverters;
 
 
     @PostMapping("/customers/{customerId}/products")
     public ResponseEntity<ProductDto> createProductForCustomer(@PathVariable String customerId,
                                                                @RequestBody(required = false) ProductDto dto) {
-        log.info("createProductForCustomer <<< customerId = '{}', dto = {}", customerId, dto);
+        log.info("createProductForCustomer <<< customerId = '{}'", customerId);
+        payloadLog.log("createProductForCustomer", "<<< dto = {}", dto);
         if (dto == null) {
             log.warn("createProductForCustomer >>> Error: no data received");
             return ResponseEntity.badRequest().build();
         }
         Product product = manager.createProductForCustomer(customerId, mapper.toModel(dto));
-        log.info("createProductForCustomer >>> product = {}", product);
+        log.info("createProductForCustomer >>> customerId = '{}', productId = '{}'", customerId, product.getId());
+        payloadLog.log("createProductForCustomer", ">>> product = {}", product);
         return ResponseEntity.ok(mapper.toDto(product));
     }
 
+    /**
+     * Creates products out of either a JSON array or a newline-delimited JSON stream,
+     * or out of an array or a sequence of CBOR or Smile documents.
+     * Products are read from the request one by one and persisted in batches, so the whole body is never held in memory.
+     */
+    @PostMapping(value = "/customers/{customerId}/products:batch",
+                 consumes = {DtoMediaTypes.JSON, MediaType.APPLICATION_NDJSON_VALUE, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Long> createProductsForCustomer(@PathVariable String customerId,
+                                                          @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) MediaType contentType,
+                                                          InputStream body) throws IOException {
+        log.info("createProductsForCustomer <<< customerId = '{}', contentType = {}", customerId, contentType);
+
+        long created;
+        try (MappingIterator<ProductDto> dtos = objectMapperFor(contentType).readerFor(ProductDto.class).readValues(body)) {
+            Stream<ProductDto> dtoStream = StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize(dtos, Spliterator.ORDERED | Spliterator.NONNULL), false);
+            created = manager.createProductsForCustomer(customerId, dtoStream.map(mapper::toModel));
+        }
+        if (created == 0) {
+            log.warn("createProductsForCustomer >>> Error: no data received");
+            return ResponseEntity.badRequest().build();
+        }
+
+        log.info("createProductsForCustomer >>> customerId = '{}', created = {}", customerId, created);
+        return ResponseEntity.ok(created);
+    }
+
     @GetMapping("/customers/{customerId}/products")
     public ResponseEntity<List<ProductDto>> findAllCustomerProducts(@PathVariable String customerId,
                                                                     @RequestParam int page,
                                                                     @RequestParam int size) {
-        log.info("findAllCustomerProducts <<< customerId = '{}'", customerId);
+        log.info("findAllCustomerProducts <<< customerId = '{}', page = {}, size = {}", customerId, page, size);
 
-        Page<Product> productsPage = manager.findAllCustomerProductsPageable(customerId, page, size);
-        if (productsPage.isEmpty() || page > productsPage.getTotalPages()) {
+        Slice<ProductDto> productsSlice = manager.findAllCustomerProductDtosSlice(customerId, page, size);
+        if (!productsSlice.hasContent()) {
             log.info("findAllCustomerProducts >>> no products found for customer '{}'!", customerId);
             return ResponseEntity.notFound().build();
         }
 
-        log.info("findAllCustomerProducts >>> customerId = '{}', products = {}", customerId, productsPage);
-        return ResponseEntity.ok(mapper.toDtos(productsPage.getContent()));
+        log.info("findAllCustomerProducts >>> customerId = '{}', found = {}, hasNext = {}",
+                 customerId, productsSlice.getNumberOfElements(), productsSlice.hasNext());
+        payloadLog.log("findAllCustomerProducts", ">>> products = {}", productsSlice.getContent());
+        return ResponseEntity.ok()
+                .header(ResponseHeaders.HAS_NEXT, String.valueOf(productsSlice.hasNext()))
+                .body(productsSlice.getContent());
+    }
+
+    @GetMapping("/customers/{customerId}/products/count")
+    public ResponseEntity<Long> countCustomerProducts(@PathVariable String customerId) {
+        log.info("countCustomerProducts <<< customerId = '{}'", customerId);
+        long count = manager.countCustomerProducts(customerId);
+        log.info("countCustomerProducts >>> customerId = '{}', count = {}", customerId, count);
+        return ResponseEntity.ok(count);
     }
 
+    @GetMapping("/customers/{customerId}/products/seek")
+    public ResponseEntity<CursorPage<ProductDto>> findAllCustomerProductsAfter(@PathVariable String customerId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam int size) {
+        log.info("findAllCustomerProductsAfter <<< customerId = '{}', cursor = '{}', size = {}", customerId, cursor, size);
 
+        CursorPage<ProductDto> productsPage = manager.findAllCustomerProductDtosAfter(customerId, cursor, size);
+        if (productsPage.isEmpty()) {
+            log.info("findAllCustomerProductsAfter >>> no products found for customer '{}'!", customerId);
+            return ResponseEntity.notFound().build();
+        }
 
+        log.info("findAllCustomerProductsAfter >>> customerId = '{}', found = {}, nextCursor = '{}'",
+                 customerId, productsPage.getItems().size(), productsPage.getNextCursor());
+        payloadLog.log("findAllCustomerProductsAfter", ">>> products = {}", productsPage.getItems());
+        return ResponseEntity.ok(productsPage);
+    }
+
+    /**
+     * Searches products by title prefix, description words, price range and deletion mark, all of them optional.
+     * Results matching the text go by relevance first and are paged with a cursor.
+     */
+    @GetMapping("/products/search")
+    public ResponseEntity<CursorPage<ProductDto>> searchProducts(@RequestParam(required = false) String title,
+                                                                 @RequestParam(required = false) String text,
+                                                                 @RequestParam(required = false) BigDecimal minPrice,
+                                                                 @RequestParam(required = false) BigDecimal maxPrice,
+                                                                 @RequestParam(required = false) Boolean deleted,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam int size) {
+        log.info("searchProducts <<< title = '{}', text = '{}', minPrice = {}, maxPrice = {}, deleted = {}, cursor = '{}', size = {}",
+                 title, text, minPrice, maxPrice, deleted, cursor, size);
+
+        ProductSearchFilter filter = ProductSearchFilter.builder()
+                .title(title)
+                .text(text)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .deleted(deleted)
+                .build();
+        CursorPage<ProductDto> productsPage = manager.searchProducts(filter, cursor, size);
+        if (productsPage.isEmpty()) {
+            log.info("searchProducts >>> no products found!");
+            return ResponseEntity.notFound().build();
+        }
+
+        log.info("searchProducts >>> found = {}, nextCursor = '{}'", productsPage.getItems().size(), productsPage.getNextCursor());
+        payloadLog.log("searchProducts", ">>> products = {}", productsPage.getItems());
+        return ResponseEntity.ok(productsPage);
+    }
+
+
+
+    /**
+     * Applies the update only if the product still has the version from {@code If-Match}, answering 412 otherwise.
+     * Without {@code If-Match} the product is read, merged and saved, answering 409 if it's concurrently changed.
+     */
     @PutMapping("/products/{productId}")
     public ResponseEntity<ProductDto> updateProduct(@PathVariable String productId,
+                                                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                     @RequestBody(required = false) UpdateProductDto updateDto) {
-        log.info("updateProduct <<< productId = '{}', update = {}", productId, updateDto);
+        log.info("updateProduct <<< productId = '{}'", productId);
+        payloadLog.log("updateProduct", "<<< update = {}", updateDto);
         if (updateDto == null) {
             log.warn("updateProduct >>> Error: no data received");
             return ResponseEntity.badRequest().build();
         }
-        Product product = manager.updateProduct(productId, updateDto);
+        OptionalLong expectedVersion = ifMatch == null ? OptionalLong.empty() : EntityTags.expectedVersion(ifMatch);
+        Product product = expectedVersion.isPresent()
+                ? manager.updateProduct(productId, expectedVersion.getAsLong(), updateDto)
+                : manager.updateProduct(productId, updateDto);
 
-        log.info("updateProduct >>> updated = {}", product);
-        return ResponseEntity.ok(mapper.toDto(product));
+        log.info("updateProduct >>> productId = '{}'", productId);
+        payloadLog.log("updateProduct", ">>> updated = {}", product);
+        return EntityTags.ok(product.getVersion(), lastModifiedOf(product)).body(mapper.toDto(product));
     }
 
+    @PutMapping(path = "/products:markDeleted",
+                consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Integer> markProductsDeleted(@RequestBody(required = false) List<String> productIds) {
+        log.info("markProductsDeleted <<< requested = {}", productIds == null ? 0 : productIds.size());
+        if (productIds == null || productIds.isEmpty()) {
+            log.warn("markProductsDeleted >>> Error: no ids received");
+            return ResponseEntity.badRequest().build();
+        }
+        int updated = manager.markProductsDeleted(productIds);
+        log.info("markProductsDeleted >>> requested = {}, updated = {}", productIds.size(), updated);
+        return ResponseEntity.ok(updated);
+    }
+
+    @PutMapping(path = "/customers/{customerId}/products:markDeleted",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Integer> markCustomerProductsDeleted(@PathVariable String customerId) {
+        log.info("markCustomerProductsDeleted <<< customerId = '{}'", customerId);
+        int updated = manager.markCustomerProductsDeleted(customerId);
+        log.info("markCustomerProductsDeleted >>> customerId = '{}', updated = {}", customerId, updated);
+        return ResponseEntity.ok(updated);
+    }
+
+    /**
+     * Multiplies prices of all not deleted products of the customer by the given factor, e.g. 1.1 for a 10% raise.
+     */
+    @PutMapping(path = "/customers/{customerId}/products:reprice",
+                produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<Integer> repriceCustomerProducts(@PathVariable String customerId,
+                                                           @RequestParam BigDecimal factor) {
+        log.info("repriceCustomerProducts <<< customerId = '{}', factor = {}", customerId, factor);
+        int updated = manager.repriceCustomerProducts(customerId, factor);
+        log.info("repriceCustomerProducts >>> customerId = '{}', updated = {}", customerId, updated);
+        return ResponseEntity.ok(updated);
+    }
+
+    /**
+     * Answers 304 to a request whose {@code If-None-Match} holds the current entity tag,
+     * checking just the product's version instead of loading it.
+     */
     @GetMapping("/products/{productId}")
-    public ResponseEntity<ProductDto> findProduct(@PathVariable String productId) {
+    public ResponseEntity<ProductDto> findProduct(@PathVariable String productId,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("findProduct <<< productId = '{}'", productId);
 
+        if (ifNoneMatch != null) {
+            Optional<EntityVersion> versionOpt = manager.findProductVersion(productId);
+            if (versionOpt.isEmpty()) {
+                log.info("findProduct >>> productId = '{}', found = false", productId);
+                return ResponseEntity.notFound().build();
+            }
+            EntityVersion version = versionOpt.get();
+            if (EntityTags.matches(ifNoneMatch, version.getVersion())) {
+                log.info("findProduct >>> productId = '{}', not modified", productId);
+                return EntityTags.notModified(version.getVersion(), version.getLastModified());
+            }
+        }
         Optional<Product> productOpt = manager.findProduct(productId);
 
-        log.info("findProduct >>> product = {}", productOpt.isPresent() ? productOpt.get() : "not found");
-        return ResponseEntity.of(productOpt.map(mapper::toDto));
+        log.info("findProduct >>> productId = '{}', found = {}", productId, productOpt.isPresent());
+        if (productOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Product product = productOpt.get();
+        payloadLog.log("findProduct", ">>> product = {}", product);
+        return EntityTags.ok(product.getVersion(), lastModifiedOf(product)).body(mapper.toDto(product));
+    }
+
+    @PostMapping(path = "/products:batchGet",
+                 consumes = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE},
+                 produces = {DtoMediaTypes.JSON, DtoMediaTypes.CBOR, DtoMediaTypes.SMILE})
+    public ResponseEntity<List<BatchGetEntry<ProductDto>>> findProducts(@RequestBody(required = false) List<String> productIds) {
+        log.info("findProducts <<< requested = {}", productIds == null ? 0 : productIds.size());
+        if (productIds == null || productIds.isEmpty()) {
+            log.warn("findProducts >>> Error: no ids received");
+            return ResponseEntity.badRequest().build();
+        }
+        List<Optional<Product>> products = manager.findProducts(productIds);
+
+        List<BatchGetEntry<ProductDto>> entries = IntStream.range(0, productIds.size())
+                .mapToObj(i -> BatchGetEntry.of(productIds.get(i), products.get(i).map(mapper::toDto)))
+                .collect(Collectors.toList());
+        log.info("findProducts >>> requested = {}, found = {}", productIds.size(), entries.stream().filter(BatchGetEntry::isFound).count());
+        return ResponseEntity.ok(entries);
     }
 
     @DeleteMapping("/products/{productId}")
@@ -87,4 +289,23 @@ public class ProductController {
         manager.deleteProduct(productId);
         log.info("deleteProduct >>> success");
     }
+
+
+    /**
+     * JSON mapper for JSON and NDJSON, the mapper of the matching converter for binary encodings.
+     */
+    private ObjectMapper objectMapperFor(MediaType contentType) {
+        if (contentType == null) {
+            return objectMapper;
+        }
+        return jacksonConverters.stream()
+                .filter(converter -> converter.canRead(ProductDto.class, contentType))
+                .map(AbstractJackson2HttpMessageConverter::getObjectMapper)
+                .findFirst()
+                .orElse(objectMapper);
+    }
+
+    private static Timestamp lastModifiedOf(Product product) {
+        return product.getModifiedAt() != null ? product.getModifiedAt() : product.getCreatedAt();
+    }
 }
@@ -0,0 +1,243 @@
+package com.bukkaa.appsmart.controller;
+
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.cache.CacheProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves repeated single customer (not expanded) and product reads from the encoded bytes of an earlier response,
+ * skipping the controller, mapping and serialization. Bytes are kept per entity id and {@code Accept} header
+ * in the {@link CacheConfig#CUSTOMER_RESPONSES} and {@link CacheConfig#PRODUCT_RESPONSES} caches,
+ * which are invalidated by the managers' write paths along with the entity caches.
+ * <p>
+ * The entry of an entity is taken before the request is served, so an eviction made meanwhile
+ * drops it together with the bytes of the outdated response put into it afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseBytesCacheFilter extends OncePerRequestFilter {
+    private static final String CUSTOMERS_PATH = "/api/v1/customers/";
+    private static final String PRODUCTS_PATH = "/api/v1/products/";
+    private static final int UUID_LENGTH = 36;
+    private static final String GZIP = "gzip";
+    private static final String ACCEPT_AND_ENCODING = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final CacheManager cacheManager;
+    private final CacheProperties properties;
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.getResponses().isEnabled()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getQueryString() != null
+                || cacheOf(pathOf(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = pathOf(request);
+        UUID id = UUID.fromString(lastSegmentOf(path));
+        String accept = Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "");
+
+        // bytes are picked by the Accept header, so shared caches must key the responses by it too
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        Representations representations = cacheOf(path).get(id, Representations::new);
+        CachedResponse cached = representations.byAccept.get(accept);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            CachedResponse captured = capture(responseWrapper);
+            if (captured != null && representations.byAccept.size() < properties.getResponses().getMaxVariants()) {
+                representations.byAccept.putIfAbsent(accept, captured);
+            }
+        } finally {
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+
+    private Cache cacheOf(String path) {
+        if (path.startsWith(CUSTOMERS_PATH) && isUuid(path.substring(CUSTOMERS_PATH.length()))) {
+            return cacheManager.getCache(CacheConfig.CUSTOMER_RESPONSES);
+        }
+        if (path.startsWith(PRODUCTS_PATH) && isUuid(path.substring(PRODUCTS_PATH.length()))) {
+            return cacheManager.getCache(CacheConfig.PRODUCT_RESPONSES);
+        }
+        return null;
+    }
+
+    private void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzippable = cached.body.length >= properties.getResponses().getGzipMinSize().toBytes();
+        response.setHeader(HttpHeaders.VARY, gzippable ? ACCEPT_AND_ENCODING : HttpHeaders.ACCEPT);
+        response.setHeader(HttpHeaders.ETAG, cached.etag);
+        if (cached.lastModified != null) {
+            response.setHeader(HttpHeaders.LAST_MODIFIED, cached.lastModified);
+        }
+        if (isNotModified(cached, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = cached.body;
+        if (gzippable && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            body = cached.gzipped();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Same precedence as Spring's own check: {@code If-Modified-Since} counts only without {@code If-None-Match}.
+     */
+    private static boolean isNotModified(CachedResponse cached, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return EntityTags.matches(ifNoneMatch, cached.etag);
+        }
+        if (cached.lastModifiedMillis < 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && cached.lastModifiedMillis / 1000 * 1000 <= ifModifiedSince;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Only complete responses carrying an entity tag are kept, i.e. neither errors nor {@code 304}s.
+     */
+    private static CachedResponse capture(ContentCachingResponseWrapper response) {
+        if (response.getStatus() != HttpServletResponse.SC_OK
+                || response.getContentType() == null
+                || response.getHeader(HttpHeaders.ETAG) == null
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return null;
+        }
+        return new CachedResponse(response.getContentAsByteArray(), response.getContentType(),
+                                  response.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only the canonical form, as {@link UUID#fromString} accepts shortened ones too.
+     */
+    private static boolean isUuid(String value) {
+        if (value.length() != UUID_LENGTH) {
+            return false;
+        }
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static String lastSegmentOf(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+
+    /**
+     * Encoded responses of a single entity per {@code Accept} header.
+     */
+    private static final class Representations {
+        private final ConcurrentMap<String, CachedResponse> byAccept = new ConcurrentHashMap<>();
+    }
+
+    private static final class CachedResponse {
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+        private final String lastModified;
+        private final long lastModifiedMillis;
+        /**
+         * Compressed on the first request accepting gzip, concurrent ones may compress it twice.
+         */
+        private volatile byte[] gzipped;
+
+        private CachedResponse(byte[] body, String contentType, String etag, String lastModified) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.lastModifiedMillis = parseDate(lastModified);
+        }
+
+        private byte[] gzipped() {
+            byte[] result = gzipped;
+            if (result == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                result = out.toByteArray();
+                gzipped = result;
+            }
+            return result;
+        }
+
+        private static long parseDate(String value) {
+            if (value == null) {
+                return -1;
+            }
+            try {
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ex) {
+                return -1;
+            }
+        }
+    }
+}
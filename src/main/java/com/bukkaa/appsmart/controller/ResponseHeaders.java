@@ -0,0 +1,12 @@
+package com.bukkaa.appsmart.controller;
+
+public final class ResponseHeaders {
+
+    /**
+     * Set on slice listings instead of total counts: whether the next page exists.
+     */
+    public static final String HAS_NEXT = "X-Has-Next";
+
+    private ResponseHeaders() {
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/v1/token")
 public class TokenController {
 
+    private static final PayloadLogger payloadLog = PayloadLogger.of(TokenController.class);
+
     private final JwtTokenService tokenService;
 
     @GetMapping
@@ -22,7 +24,8 @@ public class TokenController {
 
         String token = tokenService.generateToken(username);
 
-        log.info("generateToken >>> JWT token = [{}]", token);
+        log.info("generateToken >>> username = '{}'", username);
+        payloadLog.log("generateToken", ">>> JWT token = [{}]", token);
         return token;
     }
 }
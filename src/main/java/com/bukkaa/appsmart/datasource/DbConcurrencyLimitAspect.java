@@ -0,0 +1,100 @@
+package com.bukkaa.appsmart.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of manager calls working with the DB at once, by default by the connection pool size.
+ * With thousands of requests in flight (e.g. on virtual threads) the excess waits here in a fair queue,
+ * instead of piling up on the connection pool and timing out there.
+ * <p>
+ * Applied outside transactions, so a call takes its turn before a connection is acquired.
+ * Nested manager calls run within the outer call's turn.
+ * <p>
+ * Bounds the connections in use only as long as they are released with the transaction,
+ * hence {@code spring.jpa.open-in-view} is off: otherwise a request would keep its connection until it ends.
+ * DB work done outside manager calls, like background jobs, takes its turn with {@link #callInTurn}.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@EnableConfigurationProperties(DbConcurrencyProperties.class)
+@ConditionalOnProperty(prefix = "appsmart.datasource.concurrency", name = "enabled", matchIfMissing = true)
+public class DbConcurrencyLimitAspect {
+    static final int DEFAULT_POOL_SIZE = 10;
+
+    private static final ThreadLocal<Boolean> IN_TURN = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+
+    public DbConcurrencyLimitAspect(DbConcurrencyProperties properties, Environment environment) {
+        int limit = properties.getLimit() > 0
+                ? properties.getLimit()
+                : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, DEFAULT_POOL_SIZE);
+        this.permits = new Semaphore(limit, true);
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+        log.info("DB concurrency is limited to {} calls", limit);
+    }
+
+    @Around("execution(* com.bukkaa.appsmart.manager.*Manager.*(..))")
+    public Object limitConcurrency(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (IN_TURN.get()) {
+            return joinPoint.proceed();
+        }
+        takeTurn();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            endTurn();
+        }
+    }
+
+    /**
+     * Runs the work within a turn, like a manager call.
+     *
+     * @throws DbConcurrencyLimitExceededException if no turn is given within the acquire timeout
+     */
+    public <T> T callInTurn(Supplier<T> work) throws InterruptedException {
+        if (IN_TURN.get()) {
+            return work.get();
+        }
+        takeTurn();
+        try {
+            return work.get();
+        } finally {
+            endTurn();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+
+    private void takeTurn() throws InterruptedException {
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new DbConcurrencyLimitExceededException("Too many concurrent requests, try again later");
+        }
+        IN_TURN.set(Boolean.TRUE);
+    }
+
+    private void endTurn() {
+        IN_TURN.set(Boolean.FALSE);
+        permits.release();
+    }
+}
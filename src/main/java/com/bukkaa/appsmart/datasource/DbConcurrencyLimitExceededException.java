@@ -0,0 +1,13 @@
+package com.bukkaa.appsmart.datasource;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Thrown when a call couldn't get its turn to work with the DB in time, worth retrying later.
+ */
+public class DbConcurrencyLimitExceededException extends TransientDataAccessResourceException {
+
+    public DbConcurrencyLimitExceededException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,24 @@
+package com.bukkaa.appsmart.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("appsmart.datasource.concurrency")
+public class DbConcurrencyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Max number of manager calls doing DB work at once, {@code 0} to take the connection pool size
+     * ({@code spring.datasource.hikari.maximum-pool-size}).
+     */
+    private int limit = 0;
+
+    /**
+     * How long a call waits for its turn before failing with 503.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
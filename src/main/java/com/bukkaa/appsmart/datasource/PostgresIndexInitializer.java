@@ -0,0 +1,42 @@
+package com.bukkaa.appsmart.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Creates PostgreSQL-specific indexes (GIN, expression ones) once Hibernate has created or updated the tables.
+ * Indexes are built concurrently, without blocking writes. A failed statement, e.g. for lack of privileges
+ * to create an extension, is skipped: the application keeps working, just slower.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostgresIndexInitializer {
+    static final String SCRIPT = "db/postgresql/indexes.sql";
+
+    private final DataSource dataSource;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() throws MetaDataAccessException {
+        String database = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equals(database)) {
+            log.debug("createIndexes :: skipped for {}", database);
+            return;
+        }
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(SCRIPT));
+        populator.setContinueOnError(true);
+        populator.execute(dataSource);
+        log.info("createIndexes :: {} executed", SCRIPT);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bukkaa.appsmart.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Result of a batch get for a single requested id, entries go in the same order as requested ids.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchGetEntry<T> implements Serializable {
+
+    private String id;
+
+    private boolean found;
+
+    /**
+     * Absent if nothing was found by the id.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private T item;
+
+
+    public static <T> BatchGetEntry<T> of(String id, Optional<T> item) {
+        return new BatchGetEntry<>(id, item.isPresent(), item.orElse(null));
+    }
+}
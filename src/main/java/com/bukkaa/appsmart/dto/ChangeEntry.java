@@ -0,0 +1,42 @@
+package com.bukkaa.appsmart.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Single change of a change feed: either the current state of a created or modified (incl. marked as deleted) item,
+ * or the removal of a hard-deleted one.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeEntry<T> implements Serializable {
+
+    private String id;
+
+    private boolean removed;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Timestamp changedAt;
+
+    /**
+     * Absent if the item has been removed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private T item;
+
+
+    public static <T> ChangeEntry<T> changed(String id, Timestamp changedAt, T item) {
+        return new ChangeEntry<>(id, false, changedAt, item);
+    }
+
+    public static <T> ChangeEntry<T> removed(String id, Timestamp removedAt) {
+        return new ChangeEntry<>(id, true, removedAt, null);
+    }
+}
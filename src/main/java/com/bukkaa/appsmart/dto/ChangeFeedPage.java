@@ -0,0 +1,27 @@
+package com.bukkaa.appsmart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeFeedPage<T> implements Serializable {
+
+    private List<ChangeEntry<T>> items;
+
+    /**
+     * Opaque position after the last returned change, to request further changes with. Never {@code null}:
+     * consumers keep it to sync incrementally later on.
+     */
+    private String watermark;
+
+    /**
+     * Whether more changes are available right away.
+     */
+    private boolean hasMore;
+}
@@ -0,0 +1,33 @@
+package com.bukkaa.appsmart.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> implements Serializable {
+
+    private List<T> items;
+
+    /**
+     * Opaque cursor to request the next page with, {@code null} if this page is the last one.
+     */
+    private String nextCursor;
+
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return items == null || items.isEmpty();
+    }
+
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> converter) {
+        return new CursorPage<>(converter.apply(items), nextCursor);
+    }
+}
@@ -1,6 +1,7 @@
 package com.bukkaa.appsmart.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +9,9 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -29,5 +32,18 @@ public class CustomerDto implements Serializable {
     @JsonFormat(pattern = "dd-MM-yyyy HH:mm:ss", shape = JsonFormat.Shape.STRING)
     private Timestamp modifiedAt;
 
+    /**
+     * Present only when products were requested to be expanded.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<ProductDto> products;
+
+
+    /**
+     * Used by JPQL constructor expressions to project customer rows without loading entities.
+     * Hibernate declares timestamp columns as {@link Date}, though reads them as {@link Timestamp}.
+     */
+    public CustomerDto(UUID id, String title, boolean isDeleted, Date createdAt, Date modifiedAt) {
+        this(id.toString(), title, isDeleted, (Timestamp) createdAt, (Timestamp) modifiedAt, null);
+    }
 }
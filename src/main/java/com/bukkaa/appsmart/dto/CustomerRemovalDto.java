@@ -0,0 +1,48 @@
+package com.bukkaa.appsmart.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Progress of a customer removed in the background.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerRemovalDto implements Serializable {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private String id;
+
+    private String customerId;
+
+    private Status status;
+
+    /**
+     * Products the customer had when the removal started, more could be created meanwhile.
+     */
+    private long totalProducts;
+
+    private long removedProducts;
+
+    @JsonFormat(pattern = "dd-MM-yyyy HH:mm:ss", shape = JsonFormat.Shape.STRING)
+    private Timestamp startedAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonFormat(pattern = "dd-MM-yyyy HH:mm:ss", shape = JsonFormat.Shape.STRING)
+    private Timestamp finishedAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+}
@@ -9,6 +9,8 @@ import lombok.NoArgsConstructor;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -32,4 +34,14 @@ public class ProductDto implements Serializable {
 
     @JsonFormat(pattern = "dd-MM-yyyy HH:mm:ss", shape = JsonFormat.Shape.STRING)
     private Timestamp modifiedAt;
+
+
+    /**
+     * Used by JPQL constructor expressions to project product rows without loading entities.
+     * Hibernate declares timestamp columns as {@link Date}, though reads them as {@link Timestamp}.
+     */
+    public ProductDto(UUID id, String title, String description, BigDecimal price, boolean isDeleted,
+                      Date createdAt, Date modifiedAt) {
+        this(id.toString(), title, description, price, isDeleted, (Timestamp) createdAt, (Timestamp) modifiedAt);
+    }
 }
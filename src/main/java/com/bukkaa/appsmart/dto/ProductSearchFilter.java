@@ -0,0 +1,35 @@
+package com.bukkaa.appsmart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Product search criteria, every {@code null} criterion is not applied.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchFilter implements Serializable {
+
+    /**
+     * Case-insensitive prefix of the title.
+     */
+    private String title;
+
+    /**
+     * Words to be found in the description, results are ranked by relevance to them.
+     */
+    private String text;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private Boolean deleted;
+}
@@ -1,6 +1,8 @@
 package com.bukkaa.appsmart.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -16,11 +18,16 @@ import java.util.UUID;
 @NoArgsConstructor
 @EqualsAndHashCode
 @Entity(name = "customers")
+@Table(indexes = @Index(name = "customers_created_at_id_idx", columnList = "created_at, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Customer.CACHE_REGION)
 public class Customer implements Serializable {
+    public static final String CACHE_REGION = "customers";
+    public static final String PRODUCTS_CACHE_REGION = "customer-products";
 
     @Id
     @GeneratedValue(generator = "customer_uuid_generator")
-    @GenericGenerator(name = "customer_uuid_generator", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "customer_uuid_generator", strategy = TimeOrderedUuidGenerator.STRATEGY)
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
@@ -36,7 +43,13 @@ public class Customer implements Serializable {
     @Column(name = "modified_at")
     private Timestamp modifiedAt;
 
-    @OneToMany(mappedBy = "customer", fetch = FetchType.EAGER, orphanRemoval = true, cascade = CascadeType.ALL)
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @OneToMany(mappedBy = "customer", fetch = FetchType.LAZY, orphanRemoval = true, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Customer.PRODUCTS_CACHE_REGION)
     @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Product> products = new ArrayList<>();
 }
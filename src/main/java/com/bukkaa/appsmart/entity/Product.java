@@ -1,6 +1,8 @@
 package com.bukkaa.appsmart.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -15,15 +17,21 @@ import java.util.UUID;
 @NoArgsConstructor
 @EqualsAndHashCode
 @Entity(name = "products")
+@Table(indexes = {
+        @Index(name = "products_customer_id_created_at_id_idx", columnList = "customer_id, created_at, id"),
+        @Index(name = "products_created_at_id_idx", columnList = "created_at, id")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
 public class Product implements Serializable {
+    public static final String CACHE_REGION = "products";
 
     @Id
     @GeneratedValue(generator = "products_uuid_generator")
-    @GenericGenerator(name = "products_uuid_generator", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "products_uuid_generator", strategy = TimeOrderedUuidGenerator.STRATEGY)
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", updatable = false)
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
@@ -46,4 +54,8 @@ public class Product implements Serializable {
 
     @Column(name = "modified_at")
     private Timestamp modifiedAt;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 }
@@ -0,0 +1,53 @@
+package com.bukkaa.appsmart.entity;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Trace of a hard-deleted customer or product, lets change feed consumers learn about the removal.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Entity(name = "tombstones")
+@Table(indexes = @Index(name = "tombstones_entity_type_deleted_at_entity_id_idx",
+                        columnList = "entity_type, deleted_at, entity_id"))
+public class Tombstone implements Serializable, Persistable<UUID> {
+
+    public enum EntityType {
+        CUSTOMER, PRODUCT
+    }
+
+    @Id
+    @Column(name = "entity_id", updatable = false, nullable = false)
+    private UUID entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", updatable = false, nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "deleted_at", updatable = false, nullable = false)
+    private Timestamp deletedAt;
+
+
+    @Override
+    public UUID getId() {
+        return entityId;
+    }
+
+    /**
+     * Tombstones are only inserted, so saving them doesn't need to look for an existing row first.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
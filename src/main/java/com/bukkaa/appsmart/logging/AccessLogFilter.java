@@ -0,0 +1,90 @@
+package com.bukkaa.appsmart.logging;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes one line per request into the {@code access} logger: method, path, status and duration, no payloads.
+ * Successful requests could be sampled, see {@link AccessLogProperties}.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogFilter extends OncePerRequestFilter {
+    private static final Logger accessLog = LoggerFactory.getLogger("access");
+
+    private final AccessLogProperties properties;
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !accessLog.isInfoEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(request, response, startNanos));
+            } else {
+                log(request, status, startNanos);
+            }
+        }
+    }
+
+
+    private void log(HttpServletRequest request, int status, long startNanos) {
+        if (status < 400 && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+        long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
+        accessLog.info("method={} path={} status={} tookMs={}", request.getMethod(), request.getRequestURI(), status, tookMs);
+    }
+
+    @RequiredArgsConstructor
+    private class CompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long startNanos;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(request, response.getStatus(), startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            log(request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, startNanos);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            log(request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, startNanos);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bukkaa.appsmart.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("appsmart.logging.access")
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Share of successful requests to be logged, from 0.0 to 1.0. Failed (4xx/5xx) requests are always logged.
+     */
+    private double sampleRate = 1.0;
+}
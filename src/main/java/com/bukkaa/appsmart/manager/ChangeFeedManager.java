@@ -0,0 +1,19 @@
+package com.bukkaa.appsmart.manager;
+
+import com.bukkaa.appsmart.dto.ChangeFeedPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+
+import java.time.Instant;
+
+/**
+ * Changes of customers and products in the order they've been made, for consumers to sync incrementally.
+ * A feed is read either from the {@code since} time (from the very beginning if it's {@code null})
+ * or from the watermark of a previous page.
+ */
+public interface ChangeFeedManager {
+
+    ChangeFeedPage<CustomerDto> getCustomerChanges(Instant since, String watermark, int size);
+
+    ChangeFeedPage<ProductDto> getProductChanges(Instant since, String watermark, int size);
+}
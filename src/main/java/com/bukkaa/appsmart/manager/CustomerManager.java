@@ -1,20 +1,51 @@
 package com.bukkaa.appsmart.manager;
 
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerManager {
 
     Optional<Customer> findCustomer(String customerId);
 
+    Optional<EntityVersion> findCustomerVersion(String customerId);
+
+    Optional<Customer> findCustomerWithProducts(String customerId);
+
+    List<Optional<Customer>> findCustomers(List<String> customerIds);
+
     Customer createCustomer(Customer customer);
 
     Page<Customer> getAllCustomersPageable(int page, int size);
 
+    Slice<CustomerDto> getAllCustomerDtosSlice(int page, int size);
+
+    Slice<Customer> getAllCustomersSliceWithProducts(int page, int size);
+
+    long countCustomers();
+
+    CursorPage<CustomerDto> getAllCustomerDtosAfter(String cursor, int size);
+
+    long exportCustomersWithProducts(Consumer<Customer> consumer);
+
     void removeCustomer(String customerId);
 
     Customer updateCustomer(String customerId, UpdateCustomerDto updateCustomerDto);
+
+    /**
+     * Updates the customer only if its current version equals the expected one, without reading it first.
+     *
+     * @throws VersionMismatchException if the customer has another version
+     */
+    Customer updateCustomer(String customerId, long expectedVersion, UpdateCustomerDto updateCustomerDto);
+
+    int markCustomersDeleted(List<String> customerIds);
 }
@@ -0,0 +1,25 @@
+package com.bukkaa.appsmart.manager;
+
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
+
+import java.util.Optional;
+
+/**
+ * Removes customers with large product sets in the background, chunk by chunk, each chunk in its own transaction,
+ * so neither a long transaction nor a long request is held. Removed products get tombstones like
+ * with {@link CustomerManager#removeCustomer}, the customer row itself is deleted last.
+ */
+public interface CustomerRemovalManager {
+
+    /**
+     * @return the removal just queued, or the one already queued or running for the customer
+     * @throws IllegalArgumentException if the customer doesn't exist
+     * @throws org.springframework.core.task.TaskRejectedException if the queue of removals is full
+     */
+    CustomerRemovalDto startCustomerRemoval(String customerId);
+
+    /**
+     * @return progress of a running or recently finished removal
+     */
+    Optional<CustomerRemovalDto> findCustomerRemoval(String removalId);
+}
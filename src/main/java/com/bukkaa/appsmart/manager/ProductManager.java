@@ -1,20 +1,58 @@
 package com.bukkaa.appsmart.manager;
 
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductManager {
 
     Optional<Product> findProduct(String productId);
 
+    Optional<EntityVersion> findProductVersion(String productId);
+
+    List<Optional<Product>> findProducts(List<String> productIds);
+
     Product updateProduct(String productId, UpdateProductDto updateProductDto);
 
+    /**
+     * Updates the product only if its current version equals the expected one, without reading it first.
+     *
+     * @throws VersionMismatchException if the product has another version
+     */
+    Product updateProduct(String productId, long expectedVersion, UpdateProductDto updateProductDto);
+
     void deleteProduct(String productId);
 
+    int markProductsDeleted(List<String> productIds);
+
+    int markCustomerProductsDeleted(String customerId);
+
+    int repriceCustomerProducts(String customerId, BigDecimal factor);
+
     Page<Product> findAllCustomerProductsPageable(String customerId, int page, int size);
 
+    Slice<ProductDto> findAllCustomerProductDtosSlice(String customerId, int page, int size);
+
+    long countCustomerProducts(String customerId);
+
+    CursorPage<ProductDto> findAllCustomerProductDtosAfter(String customerId, String cursor, int size);
+
+    /**
+     * Finds products matching the filter, the most relevant to the searched text first, then the oldest first.
+     */
+    CursorPage<ProductDto> searchProducts(ProductSearchFilter filter, String cursor, int size);
+
     Product createProductForCustomer(String customerId, Product product);
+
+    long createProductsForCustomer(String customerId, Stream<Product> products);
 }
@@ -0,0 +1,13 @@
+package com.bukkaa.appsmart.manager;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Thrown by conditional updates when the entity's current version differs from the expected one.
+ */
+public class VersionMismatchException extends OptimisticLockingFailureException {
+
+    public VersionMismatchException(String msg) {
+        super(msg);
+    }
+}
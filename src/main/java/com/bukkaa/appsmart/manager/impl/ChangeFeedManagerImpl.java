@@ -0,0 +1,114 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import com.bukkaa.appsmart.dto.ChangeEntry;
+import com.bukkaa.appsmart.dto.ChangeFeedPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.entity.Tombstone;
+import com.bukkaa.appsmart.manager.ChangeFeedManager;
+import com.bukkaa.appsmart.paging.Cursor;
+import com.bukkaa.appsmart.repository.CustomerRepository;
+import com.bukkaa.appsmart.repository.ProductRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedManagerImpl implements ChangeFeedManager {
+    private static final UUID MIN_ID = new UUID(0, 0);
+
+    /**
+     * Same order as in the DB: UUIDs are compared there byte by byte, which is the order of their string form.
+     */
+    private static final Comparator<ChangeEntry<?>> CHANGE_ORDER = Comparator
+            .comparing((ChangeEntry<?> change) -> change.getChangedAt())
+            .thenComparing(ChangeEntry::getId);
+
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeFeedProperties properties;
+
+
+    @Override
+    public ChangeFeedPage<CustomerDto> getCustomerChanges(Instant since, String watermark, int size) {
+        return readFeed(since, watermark, size, (after, until, limit) -> Stream.concat(
+                customerRepository.findDtosChangedAfter(after.getCreatedAt(), after.getId(), until, limit).stream()
+                        .map(dto -> ChangeEntry.changed(dto.getId(), changedAt(dto.getCreatedAt(), dto.getModifiedAt()), dto)),
+                removedAfter(Tombstone.EntityType.CUSTOMER, after, until, limit)));
+    }
+
+    @Override
+    public ChangeFeedPage<ProductDto> getProductChanges(Instant since, String watermark, int size) {
+        return readFeed(since, watermark, size, (after, until, limit) -> Stream.concat(
+                productRepository.findDtosChangedAfter(after.getCreatedAt(), after.getId(), until, limit).stream()
+                        .map(dto -> ChangeEntry.changed(dto.getId(), changedAt(dto.getCreatedAt(), dto.getModifiedAt()), dto)),
+                removedAfter(Tombstone.EntityType.PRODUCT, after, until, limit)));
+    }
+
+
+    /**
+     * Changed items and tombstones are read separately, up to a page each, and merged in the order of change.
+     */
+    private <T> ChangeFeedPage<T> readFeed(Instant since, String watermark, int size, ChangeReader<T> reader) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one!");
+        }
+        if (since != null && watermark != null) {
+            throw new IllegalArgumentException("Either since or watermark could be requested, not both!");
+        }
+        Cursor after = watermark != null
+                ? Cursor.decode(watermark)
+                : new Cursor(Timestamp.from(since != null ? since : Instant.EPOCH), MIN_ID);
+        Timestamp until = Timestamp.from(Instant.now().minus(properties.getSettleTime()));
+
+        List<ChangeEntry<T>> changes = reader.read(after, until, PageRequest.of(0, size + 1))
+                .sorted(CHANGE_ORDER)
+                .limit(size + 1L)
+                .collect(Collectors.toList());
+        if (changes.size() <= size) {
+            return new ChangeFeedPage<>(changes, watermarkAfter(changes, after), false);
+        }
+        List<ChangeEntry<T>> items = new ArrayList<>(changes.subList(0, size));
+        return new ChangeFeedPage<>(items, watermarkAfter(items, after), true);
+    }
+
+    private <T> Stream<ChangeEntry<T>> removedAfter(Tombstone.EntityType entityType, Cursor after,
+                                                    Timestamp until, PageRequest limit) {
+        return tombstoneRepository.findDeletedAfter(entityType, after.getCreatedAt(), after.getId(), until, limit).stream()
+                .map(tombstone -> ChangeEntry.removed(tombstone.getEntityId().toString(), tombstone.getDeletedAt()));
+    }
+
+    private static String watermarkAfter(List<? extends ChangeEntry<?>> changes, Cursor after) {
+        if (changes.isEmpty()) {
+            return after.encode();
+        }
+        ChangeEntry<?> last = changes.get(changes.size() - 1);
+        return new Cursor(last.getChangedAt(), UUID.fromString(last.getId())).encode();
+    }
+
+    private static Timestamp changedAt(Timestamp createdAt, Timestamp modifiedAt) {
+        return modifiedAt != null ? modifiedAt : createdAt;
+    }
+
+
+    @FunctionalInterface
+    private interface ChangeReader<T> {
+        Stream<ChangeEntry<T>> read(Cursor after, Timestamp until, PageRequest limit);
+    }
+}
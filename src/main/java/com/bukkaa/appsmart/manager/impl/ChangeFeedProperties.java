@@ -0,0 +1,18 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("appsmart.changes")
+public class ChangeFeedProperties {
+
+    /**
+     * Changes younger than that aren't returned yet: a transaction still in progress may commit a change
+     * timestamped before the last returned one, and it would be skipped by consumers otherwise.
+     * Should exceed the longest writing transaction.
+     */
+    private Duration settleTime = Duration.ofSeconds(5);
+}
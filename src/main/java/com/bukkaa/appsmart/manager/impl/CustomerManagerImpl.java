@@ -1,21 +1,37 @@
 package com.bukkaa.appsmart.manager.impl;
 
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.concurrency.Coalesced;
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Tombstone;
 import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.VersionMismatchException;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
+import com.bukkaa.appsmart.paging.Cursor;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import com.bukkaa.appsmart.repository.CustomerRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static java.lang.String.format;
 
@@ -27,37 +43,163 @@ public class CustomerManagerImpl implements CustomerManager {
 
     private final CustomerRepository repository;
     private final CustomerMapper mapper;
+    private final EntityCacheEvictor cacheEvictor;
+    private final TombstoneRepository tombstoneRepository;
 
     @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS, key = "T(java.util.UUID).fromString(#customerId)", unless = "#result == null")
     public Optional<Customer> findCustomer(String customerId) {
         return repository.findById(UUID.fromString(customerId));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    public Optional<Customer> findCustomerWithProducts(String customerId) {
+        return repository.findWithProductsById(UUID.fromString(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findCustomerVersion(String customerId) {
+        return repository.findVersionById(UUID.fromString(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Optional<Customer>> findCustomers(List<String> customerIds) {
+        return IdBatches.getInRequestOrder(customerIds, repository::findAllById, Customer::getId);
+    }
+
     @Override
     public Customer createCustomer(Customer customer) {
-        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setCreatedAt(now());
         return repository.save(customer);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Coalesced
     public Page<Customer> getAllCustomersPageable(int page, int size) {
         return repository.findAll(PageRequest.of(page, size));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    public Slice<CustomerDto> getAllCustomerDtosSlice(int page, int size) {
+        return repository.findAllDtosBy(PageRequest.of(page, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    public Slice<Customer> getAllCustomersSliceWithProducts(int page, int size) {
+        Slice<Customer> customersSlice = repository.findAllBy(PageRequest.of(page, size));
+        if (customersSlice.hasContent()) {
+            // initializes products of the very same managed customers with one query for the whole page
+            repository.findAllWithProductsByIdIn(customersSlice.map(Customer::getId).getContent());
+        }
+        return customersSlice;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_COUNT, key = "'all'")
+    public long countCustomers() {
+        return repository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    public CursorPage<CustomerDto> getAllCustomerDtosAfter(String cursor, int size) {
+        return Cursor.seek(cursor, size,
+                           repository::findFirstSeekDtoPage,
+                           (after, limit) -> repository.findSeekDtoPageAfter(after.getCreatedAt(), after.getId(), limit),
+                           dto -> new Cursor(dto.getCreatedAt(), UUID.fromString(dto.getId())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCustomersWithProducts(Consumer<Customer> consumer) {
+        long exported = repository.exportWithProducts(consumer);
+        log.info("exportCustomersWithProducts :: exported {} customers", exported);
+        return exported;
+    }
+
+    /**
+     * Set-based: tombstones of the products are inserted and the products deleted with a statement each,
+     * neither the customer nor its products are loaded, only the product ids to evict.
+     */
     @Override
     public void removeCustomer(String customerId) {
-        repository.deleteById(UUID.fromString(customerId));
+        UUID id = UUID.fromString(customerId);
+        Timestamp deletedAt = now();
+        List<UUID> productIds = repository.findProductIdsByCustomerId(id, Pageable.unpaged());
+        int products = tombstoneRepository.insertProductTombstonesByCustomerId(id, Tombstone.EntityType.PRODUCT, deletedAt);
+        repository.deleteProductsByCustomerId(id);
+        if (repository.deleteCustomerById(id) == 0) {
+            throw new IllegalArgumentException(format("Customer with id = '%s' not found!", id));
+        }
+        tombstoneRepository.save(new Tombstone(id, Tombstone.EntityType.CUSTOMER, deletedAt));
+        log.info("removeCustomer :: removed customer '{}' with {} products", id, products);
+
+        cacheEvictor.evictCustomer(id);
+        productIds.forEach(cacheEvictor::evictProduct);
     }
 
     @Override
     public Customer updateCustomer(String customerId, UpdateCustomerDto updateCustomerDto) {
-        return repository.findById(UUID.fromString(customerId))
+        UUID id = UUID.fromString(customerId);
+        return repository.findById(id)
                 .map(customerToUpdate -> mapper.merge(customerToUpdate, updateCustomerDto))
                 .map(repository::save)
+                .map(updated -> {
+                    cacheEvictor.evictCustomer(id);
+                    return updated;
+                })
                 .orElseThrow(() -> {
                     String message = format("Customer with id = '%s' not found!", customerId);
                     log.info("updateCustomer >>> {}", message);
                     throw new IllegalArgumentException(message);
                 });
     }
+
+    @Override
+    public Customer updateCustomer(String customerId, long expectedVersion, UpdateCustomerDto updateCustomerDto) {
+        UUID id = UUID.fromString(customerId);
+        if (repository.updateIfVersion(id, expectedVersion, updateCustomerDto, now()) == 0) {
+            EntityVersion current = repository.findVersionById(id)
+                    .orElseThrow(() -> {
+                        String message = format("Customer with id = '%s' not found!", customerId);
+                        log.info("updateCustomer >>> {}", message);
+                        throw new IllegalArgumentException(message);
+                    });
+            String message = format("Customer with id = '%s' has version %d, expected %d!", customerId, current.getVersion(), expectedVersion);
+            log.info("updateCustomer >>> {}", message);
+            throw new VersionMismatchException(message);
+        }
+        cacheEvictor.evictCustomer(id);
+        return repository.findById(id).orElseThrow();
+    }
+
+    @Override
+    public int markCustomersDeleted(List<String> customerIds) {
+        List<UUID> ids = IdBatches.parse(customerIds, IdBatches.MAX_UPDATE_IDS);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int updated = repository.markDeletedByIdIn(ids, now());
+        log.info("markCustomersDeleted :: marked {} of {} requested customers as deleted", updated, ids.size());
+        ids.forEach(cacheEvictor::evictCustomer);
+        return updated;
+    }
+
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
 }
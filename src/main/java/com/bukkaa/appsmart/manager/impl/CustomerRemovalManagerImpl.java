@@ -0,0 +1,251 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.datasource.DbConcurrencyLimitAspect;
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
+import com.bukkaa.appsmart.entity.Tombstone;
+import com.bukkaa.appsmart.manager.CustomerRemovalManager;
+import com.bukkaa.appsmart.repository.CustomerRepository;
+import com.bukkaa.appsmart.repository.ProductRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+@Slf4j
+@Service
+@EnableConfigurationProperties(CustomerRemovalProperties.class)
+public class CustomerRemovalManagerImpl implements CustomerRemovalManager {
+
+    private final CustomerRepository repository;
+    private final ProductRepository productRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final EntityCacheEvictor cacheEvictor;
+    private final TransactionTemplate transaction;
+    private final DbConcurrencyLimitAspect dbConcurrencyLimit;
+    private final CustomerRemovalProperties properties;
+
+    private final ExecutorService executor;
+    private final Cache<UUID, CustomerRemovalDto> removals;
+    /**
+     * Ids of queued and running removals by customer id, released only once the removal is over.
+     */
+    private final ConcurrentMap<UUID, UUID> running = new ConcurrentHashMap<>();
+
+
+    public CustomerRemovalManagerImpl(CustomerRepository repository,
+                                      ProductRepository productRepository,
+                                      TombstoneRepository tombstoneRepository,
+                                      EntityCacheEvictor cacheEvictor,
+                                      PlatformTransactionManager transactionManager,
+                                      ObjectProvider<DbConcurrencyLimitAspect> dbConcurrencyLimit,
+                                      CustomerRemovalProperties properties) {
+        this.repository = repository;
+        this.productRepository = productRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dbConcurrencyLimit = dbConcurrencyLimit.getIfAvailable();
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                                               new CustomizableThreadFactory("customer-removal-"));
+        this.removals = Caffeine.newBuilder().expireAfter(new FinishedRemovalExpiry(properties.getRetention())).build();
+    }
+
+    @Override
+    public CustomerRemovalDto startCustomerRemoval(String customerId) {
+        UUID id = UUID.fromString(customerId);
+        if (!repository.existsById(id)) {
+            throw new IllegalArgumentException(format("Customer with id = '%s' not found!", id));
+        }
+
+        UUID removalId = UUID.randomUUID();
+        CustomerRemovalDto removal = CustomerRemovalDto.builder()
+                .id(removalId.toString())
+                .customerId(id.toString())
+                .status(CustomerRemovalDto.Status.QUEUED)
+                .totalProducts(productRepository.countByCustomerId(id))
+                .startedAt(now())
+                .build();
+        // put before claiming the customer, so whoever sees the claim finds the removal
+        removals.put(removalId, removal);
+        UUID runningId = running.putIfAbsent(id, removalId);
+        while (runningId != null) {
+            CustomerRemovalDto runningRemoval = removals.getIfPresent(runningId);
+            if (runningRemoval != null) {
+                removals.invalidate(removalId);
+                return runningRemoval;
+            }
+            // unfinished removals don't expire, so that one is over and just about to release its claim
+            runningId = running.replace(id, runningId, removalId) ? null : running.putIfAbsent(id, removalId);
+        }
+
+        try {
+            executor.execute(() -> remove(removalId, id));
+        } catch (RejectedExecutionException ex) {
+            running.remove(id, removalId);
+            removals.invalidate(removalId);
+            throw new TaskRejectedException(format("Too many customer removals queued, customer '%s' isn't removed!", id), ex);
+        }
+        log.info("startCustomerRemoval :: removal '{}' of customer '{}' with {} products queued",
+                 removalId, id, removal.getTotalProducts());
+        return removal;
+    }
+
+    @Override
+    public Optional<CustomerRemovalDto> findCustomerRemoval(String removalId) {
+        return Optional.ofNullable(removals.getIfPresent(UUID.fromString(removalId)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    private void remove(UUID removalId, UUID customerId) {
+        try {
+            update(removalId, removal -> removal.toBuilder().status(CustomerRemovalDto.Status.RUNNING).build());
+            int chunk;
+            do {
+                chunk = inTransaction(status -> removeProductsChunk(customerId));
+                int removed = chunk;
+                update(removalId, removal -> removal.toBuilder().removedProducts(removal.getRemovedProducts() + removed).build());
+            } while (chunk > 0);
+
+            inTransaction(status -> removeCustomerRow(customerId));
+            update(removalId, removal -> removal.toBuilder()
+                    .status(CustomerRemovalDto.Status.DONE)
+                    .finishedAt(now())
+                    .build());
+            log.info("remove :: removal '{}' of customer '{}' is done", removalId, customerId);
+        } catch (RuntimeException ex) {
+            log.error("remove :: removal '{}' of customer '{}' failed", removalId, customerId, ex);
+            update(removalId, removal -> removal.toBuilder()
+                    .status(CustomerRemovalDto.Status.FAILED)
+                    .finishedAt(now())
+                    .error(ex.getMessage())
+                    .build());
+        } finally {
+            running.remove(customerId, removalId);
+        }
+    }
+
+    /**
+     * Deletes the oldest products of the customer up to the chunk size.
+     *
+     * @return number of removed products, {@code 0} once the customer has none left
+     */
+    private int removeProductsChunk(UUID customerId) {
+        List<UUID> productIds = repository.findProductIdsByCustomerId(customerId, PageRequest.of(0, properties.getChunkSize()));
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp deletedAt = now();
+        tombstoneRepository.saveAll(productIds.stream()
+                                            .map(productId -> new Tombstone(productId, Tombstone.EntityType.PRODUCT, deletedAt))
+                                            .collect(Collectors.toList()));
+        repository.deleteProductsByIdIn(productIds);
+
+        productIds.forEach(cacheEvictor::evictProduct);
+        cacheEvictor.evictCustomer(customerId);
+        return productIds.size();
+    }
+
+    private Void removeCustomerRow(UUID customerId) {
+        if (repository.deleteCustomerById(customerId) == 0) {
+            throw new IllegalArgumentException(format("Customer with id = '%s' not found!", customerId));
+        }
+        tombstoneRepository.save(new Tombstone(customerId, Tombstone.EntityType.CUSTOMER, now()));
+        cacheEvictor.evictCustomer(customerId);
+        return null;
+    }
+
+    /**
+     * Takes a DB turn for every transaction like manager calls do, so removals stay within the DB concurrency limit.
+     */
+    private <T> T inTransaction(TransactionCallback<T> work) {
+        if (dbConcurrencyLimit == null) {
+            return transaction.execute(work);
+        }
+        try {
+            return dbConcurrencyLimit.callInTurn(() -> transaction.execute(work));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a DB turn", ex);
+        }
+    }
+
+    private void update(UUID removalId, UnaryOperator<CustomerRemovalDto> change) {
+        removals.asMap().computeIfPresent(removalId, (id, removal) -> change.apply(removal));
+    }
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+
+    /**
+     * Keeps queued and running removals until they are over, finished ones for the retention since their last change.
+     */
+    private static final class FinishedRemovalExpiry implements Expiry<UUID, CustomerRemovalDto> {
+        private final long retentionNanos;
+
+        private FinishedRemovalExpiry(Duration retention) {
+            this.retentionNanos = retention.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(UUID id, CustomerRemovalDto removal, long currentTime) {
+            return lifetimeOf(removal);
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID id, CustomerRemovalDto removal, long currentTime, long currentDuration) {
+            return lifetimeOf(removal);
+        }
+
+        @Override
+        public long expireAfterRead(UUID id, CustomerRemovalDto removal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long lifetimeOf(CustomerRemovalDto removal) {
+            CustomerRemovalDto.Status status = removal.getStatus();
+            return status == CustomerRemovalDto.Status.DONE || status == CustomerRemovalDto.Status.FAILED
+                   ? retentionNanos
+                   : Long.MAX_VALUE;
+        }
+    }
+}
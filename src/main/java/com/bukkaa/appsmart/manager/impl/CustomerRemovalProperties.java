@@ -0,0 +1,31 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("appsmart.customer-removal")
+public class CustomerRemovalProperties {
+
+    /**
+     * Products deleted per transaction.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Customers removed at once, further removals wait in a queue.
+     */
+    private int threads = 1;
+
+    /**
+     * Removals waiting for a thread, further ones are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * How long the progress of a removal stays available since its last change.
+     */
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,43 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Parses and bounds batches of ids received by bulk operations.
+ */
+final class IdBatches {
+    static final int MAX_GET_IDS = 1000;
+    static final int MAX_UPDATE_IDS = 10_000;
+
+    private IdBatches() {
+    }
+
+    static List<UUID> parse(List<String> ids, int maxIds) {
+        if (ids.size() > maxIds) {
+            throw new IllegalArgumentException("At most " + maxIds + " ids could be requested at once!");
+        }
+        return ids.stream()
+                .map(UUID::fromString)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads entities for a batch of ids with a single query and lines the results up with the requested ids.
+     *
+     * @return entity or empty for each of requested ids, in the same order, duplicates included
+     */
+    static <T> List<Optional<T>> getInRequestOrder(List<String> requestedIds,
+                                                   Function<Set<UUID>, Iterable<T>> loader,
+                                                   Function<T, UUID> idOf) {
+        List<UUID> ids = parse(requestedIds, MAX_GET_IDS);
+
+        Map<UUID, T> found = new HashMap<>();
+        loader.apply(new LinkedHashSet<>(ids)).forEach(entity -> found.put(idOf.apply(entity), entity));
+
+        return ids.stream()
+                .map(id -> Optional.ofNullable(found.get(id)))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,23 +1,43 @@
 package com.bukkaa.appsmart.manager.impl;
 
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.concurrency.Coalesced;
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.entity.Tombstone;
 import com.bukkaa.appsmart.manager.CustomerManager;
 import com.bukkaa.appsmart.manager.ProductManager;
+import com.bukkaa.appsmart.manager.VersionMismatchException;
 import com.bukkaa.appsmart.mapper.ProductMapper;
+import com.bukkaa.appsmart.paging.Cursor;
+import com.bukkaa.appsmart.paging.SearchCursor;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import com.bukkaa.appsmart.repository.ProductRepository;
+import com.bukkaa.appsmart.repository.ProductSearchHit;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
@@ -30,18 +50,41 @@ public class ProductManagerImpl implements ProductManager {
     private final ProductRepository repository;
     private final CustomerManager customerManager;
     private final ProductMapper mapper;
+    private final EntityCacheEvictor cacheEvictor;
+    private final TombstoneRepository tombstoneRepository;
 
 
     @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "T(java.util.UUID).fromString(#productId)", unless = "#result == null")
     public Optional<Product> findProduct(String productId) {
         return repository.findById(UUID.fromString(productId));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findProductVersion(String productId) {
+        return repository.findVersionById(UUID.fromString(productId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Optional<Product>> findProducts(List<String> productIds) {
+        return IdBatches.getInRequestOrder(productIds, repository::findAllById, Product::getId);
+    }
+
     @Override
     public Product updateProduct(String productId, UpdateProductDto updateProductDto) {
-        return repository.findById(UUID.fromString(productId))
+        UUID id = UUID.fromString(productId);
+        return repository.findById(id)
                 .map(productToUpdate -> mapper.merge(productToUpdate, updateProductDto))
                 .map(repository::save)
+                .map(updated -> {
+                    cacheEvictor.evictProduct(id);
+                    cacheEvictor.evictCustomerOf(updated.getCustomer());
+                    return updated;
+                })
                 .orElseThrow(() -> {
                     String message = format("Product with id = '%s' not found!", productId);
                     log.info("updateProduct >>> {}", message);
@@ -49,27 +92,173 @@ public class ProductManagerImpl implements ProductManager {
                 });
     }
 
+    @Override
+    public Product updateProduct(String productId, long expectedVersion, UpdateProductDto updateProductDto) {
+        UUID id = UUID.fromString(productId);
+        if (repository.updateIfVersion(id, expectedVersion, updateProductDto, now()) == 0) {
+            EntityVersion current = repository.findVersionById(id)
+                    .orElseThrow(() -> {
+                        String message = format("Product with id = '%s' not found!", productId);
+                        log.info("updateProduct >>> {}", message);
+                        throw new IllegalArgumentException(message);
+                    });
+            String message = format("Product with id = '%s' has version %d, expected %d!", productId, current.getVersion(), expectedVersion);
+            log.info("updateProduct >>> {}", message);
+            throw new VersionMismatchException(message);
+        }
+        Product updated = repository.findById(id).orElseThrow();
+        cacheEvictor.evictProduct(id);
+        cacheEvictor.evictCustomerOf(updated.getCustomer());
+        return updated;
+    }
+
     @Override
     public void deleteProduct(String productId) {
-        repository.deleteById(UUID.fromString(productId));
+        UUID id = UUID.fromString(productId);
+        repository.findById(id)
+                .map(Product::getCustomer)
+                .ifPresent(cacheEvictor::evictCustomerOf);
+        repository.deleteById(id);
+        tombstoneRepository.save(new Tombstone(id, Tombstone.EntityType.PRODUCT, now()));
+        cacheEvictor.evictProduct(id);
+    }
+
+    @Override
+    public int markProductsDeleted(List<String> productIds) {
+        List<UUID> ids = IdBatches.parse(productIds, IdBatches.MAX_UPDATE_IDS);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int updated = repository.markDeletedByIdIn(ids, now());
+        log.info("markProductsDeleted :: marked {} of {} requested products as deleted", updated, ids.size());
+        ids.forEach(cacheEvictor::evictProduct);
+        return updated;
     }
 
     @Override
+    public int markCustomerProductsDeleted(String customerId) {
+        UUID customerUuid = UUID.fromString(customerId);
+        int updated = repository.markDeletedByCustomerId(customerUuid, now());
+        log.info("markCustomerProductsDeleted :: marked {} products of customer '{}' as deleted", updated, customerId);
+        evictCustomerProducts(customerUuid);
+        return updated;
+    }
+
+    @Override
+    public int repriceCustomerProducts(String customerId, BigDecimal factor) {
+        UUID customerUuid = UUID.fromString(customerId);
+        if (factor == null || factor.signum() <= 0) {
+            throw new IllegalArgumentException("Price factor must be positive!");
+        }
+        int updated = repository.repriceByCustomerId(customerUuid, factor, now());
+        log.info("repriceCustomerProducts :: repriced {} products of customer '{}' by factor {}", updated, customerId, factor);
+        evictCustomerProducts(customerUuid);
+        return updated;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
     public Page<Product> findAllCustomerProductsPageable(String customerId, int page, int size) {
         return repository.findAllProductsByCustomerId(UUID.fromString(customerId), PageRequest.of(page, size));
     }
 
     @Override
-    public Product createProductForCustomer(String customerId, Product product) {
-        Optional<Customer> customer = customerManager.findCustomer(customerId);
-        if (customer.isEmpty()) {
-            String message = "No Customer found with id = '" + customerId + "'";
-            log.info("createProductForCustomer >>> " + message);
-            throw new IllegalArgumentException(message);
+    @Transactional(readOnly = true)
+    @Coalesced
+    public Slice<ProductDto> findAllCustomerProductDtosSlice(String customerId, int page, int size) {
+        return repository.findDtosSliceByCustomerId(UUID.fromString(customerId), PageRequest.of(page, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CUSTOMER_PRODUCTS_COUNT, key = "T(java.util.UUID).fromString(#customerId)")
+    public long countCustomerProducts(String customerId) {
+        return repository.countByCustomerId(UUID.fromString(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Coalesced
+    public CursorPage<ProductDto> findAllCustomerProductDtosAfter(String customerId, String cursor, int size) {
+        UUID customerUuid = UUID.fromString(customerId);
+        return Cursor.seek(cursor, size,
+                           limit -> repository.findFirstSeekDtoPageByCustomerId(customerUuid, limit),
+                           (after, limit) -> repository.findSeekDtoPageByCustomerIdAfter(customerUuid, after.getCreatedAt(), after.getId(), limit),
+                           dto -> new Cursor(dto.getCreatedAt(), UUID.fromString(dto.getId())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDto> searchProducts(ProductSearchFilter filter, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one!");
         }
-        product.setCustomer(customer.get());
-        product.setCreatedAt(Timestamp.from(Instant.now()));
-        log.info("createProductForCustomer :: persisting new product {}", product);
-        return repository.save(product);
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+            && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new IllegalArgumentException("Min price must not be greater than max price!");
+        }
+        ProductSearchFilter normalized = filter.toBuilder()
+                .title(blankToNull(filter.getTitle()))
+                .text(blankToNull(filter.getText()))
+                .build();
+        SearchCursor after = cursor == null ? null : SearchCursor.decode(cursor);
+
+        List<ProductSearchHit> hits = repository.search(normalized, after, size + 1);
+        return Cursor.toPage(hits, size,
+                             hit -> new SearchCursor(hit.getRank(), hit.getProduct().getCreatedAt(),
+                                                     UUID.fromString(hit.getProduct().getId())))
+                .map(page -> page.stream().map(ProductSearchHit::getProduct).collect(Collectors.toList()));
+    }
+
+    @Override
+    public Product createProductForCustomer(String customerId, Product product) {
+        Customer customer = findCustomerToCreateFor(customerId, "createProductForCustomer");
+        prepareForCustomer(product, customer);
+        log.debug("createProductForCustomer :: persisting new product {}", product);
+        Product persisted = repository.save(product);
+        cacheEvictor.evictCustomerOf(customer);
+        return persisted;
+    }
+
+    @Override
+    public long createProductsForCustomer(String customerId, Stream<Product> products) {
+        Customer customer = findCustomerToCreateFor(customerId, "createProductsForCustomer");
+        long persisted = repository.insertAll(products.map(product -> prepareForCustomer(product, customer)));
+        log.info("createProductsForCustomer :: persisted {} new products for customer '{}'", persisted, customerId);
+        cacheEvictor.evictCustomerOf(customer);
+        return persisted;
+    }
+
+
+    private Customer findCustomerToCreateFor(String customerId, String operation) {
+        return customerManager.findCustomer(customerId)
+                .orElseThrow(() -> {
+                    String message = "No Customer found with id = '" + customerId + "'";
+                    log.info(operation + " >>> " + message);
+                    throw new IllegalArgumentException(message);
+                });
+    }
+
+    /**
+     * Selected after the bulk update within its transaction, so the ids include every product it updated.
+     */
+    private void evictCustomerProducts(UUID customerId) {
+        cacheEvictor.evictCustomer(customerId);
+        repository.findIdsByCustomerId(customerId).forEach(cacheEvictor::evictProduct);
+    }
+
+    private static Product prepareForCustomer(Product product, Customer customer) {
+        product.setCustomer(customer);
+        product.setCreatedAt(now());
+        return product;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.strip();
+    }
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
     }
 }
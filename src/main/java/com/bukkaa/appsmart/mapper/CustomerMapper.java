@@ -18,8 +18,13 @@ public interface CustomerMapper {
 
     @Mapping(target = "id", nullValueCheckStrategy = ALWAYS, qualifiedByName = "uuidToString")
     @Mapping(target = "isDeleted", source = "deleted")
+    @Mapping(target = "products", ignore = true)
     CustomerDto toDto(Customer model);
 
+    @Mapping(target = "id", nullValueCheckStrategy = ALWAYS, qualifiedByName = "uuidToString")
+    @Mapping(target = "isDeleted", source = "deleted")
+    CustomerDto toDtoWithProducts(Customer model);
+
     default List<CustomerDto> toDtos(List<Customer> list) {
         return ofNullable(list)
                 .flatMap(Collection::stream)
@@ -27,13 +32,22 @@ public interface CustomerMapper {
                 .collect(Collectors.toList());
     }
 
+    default List<CustomerDto> toDtosWithProducts(List<Customer> list) {
+        return ofNullable(list)
+                .flatMap(Collection::stream)
+                .map(this::toDtoWithProducts)
+                .collect(Collectors.toList());
+    }
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "modifiedAt", ignore = true)
     @Mapping(target = "products", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Customer toModel(CustomerDto dto);
 
-    @Mapping(target = "modifiedAt", expression = "java( java.sql.Timestamp.from( java.time.Instant.now() ) )")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "modifiedAt", expression = "java( java.sql.Timestamp.from( java.time.Instant.now().truncatedTo( java.time.temporal.ChronoUnit.MICROS ) ) )")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     Customer merge(@MappingTarget Customer target, UpdateCustomerDto updateDto);
 }
@@ -29,9 +29,11 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "modifiedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Product toModel(ProductDto dto);
 
-    @Mapping(target = "modifiedAt", expression = "java( java.sql.Timestamp.from( java.time.Instant.now() ) )")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "modifiedAt", expression = "java( java.sql.Timestamp.from( java.time.Instant.now().truncatedTo( java.time.temporal.ChronoUnit.MICROS ) ) )")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     Product merge(@MappingTarget Product target, UpdateProductDto updateDto);
 }
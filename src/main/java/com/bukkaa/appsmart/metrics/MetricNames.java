@@ -0,0 +1,11 @@
+package com.bukkaa.appsmart.metrics;
+
+public final class MetricNames {
+    public static final String MANAGER_CALLS = "appsmart.manager";
+    public static final String COALESCED_CALLS = "appsmart.manager.coalesced";
+    public static final String JWT_VALIDATION = "appsmart.jwt.validation";
+    public static final String HIBERNATE_STATEMENTS = "appsmart.hibernate.statements";
+
+    private MetricNames() {
+    }
+}
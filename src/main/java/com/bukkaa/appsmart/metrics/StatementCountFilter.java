@@ -0,0 +1,88 @@
+package com.bukkaa.appsmart.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the number of SQL statements executed while serving a request, tagged the same way as request timings.
+ * Statements of async processing (a {@code StreamingResponseBody}, like the export's) count for the request as well,
+ * which is then recorded once the async processing completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+    private static final String COUNT_ATTRIBUTE = StatementCountFilter.class.getName() + ".COUNT";
+
+    private final StatementCountingInspector statementInspector;
+    private final MeterRegistry meterRegistry;
+
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        AtomicInteger count = (AtomicInteger) request.getAttribute(COUNT_ATTRIBUTE);
+        if (count == null) {
+            count = new AtomicInteger();
+            request.setAttribute(COUNT_ATTRIBUTE, count);
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(COUNT_ATTRIBUTE, new AsyncCountingInterceptor(count));
+        }
+        statementInspector.countInto(count);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statementInspector.stopCounting();
+            if (!isAsyncStarted(request)) {
+                record(request, count.get());
+            }
+        }
+    }
+
+
+    private void record(HttpServletRequest request, int statements) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(MetricNames.HIBERNATE_STATEMENTS)
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(statements);
+    }
+
+
+    /**
+     * Hands the request's counter over to the thread running the async processing.
+     */
+    @RequiredArgsConstructor
+    private class AsyncCountingInterceptor implements CallableProcessingInterceptor {
+        private final AtomicInteger count;
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            statementInspector.countInto(count);
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            statementInspector.stopCounting();
+        }
+    }
+}
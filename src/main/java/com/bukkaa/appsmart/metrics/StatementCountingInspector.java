@@ -0,0 +1,37 @@
+package com.bukkaa.appsmart.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts SQL statements prepared by Hibernate on the current thread into the counter it is given.
+ * A request's counter may be handed over to another thread, e.g. one streaming the response.
+ */
+@Component
+public class StatementCountingInspector implements StatementInspector {
+
+    private final ThreadLocal<AtomicInteger> counter = new ThreadLocal<>();
+
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = counter.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * Counts statements of the current thread into the given counter until {@link #stopCounting()}.
+     */
+    public void countInto(AtomicInteger count) {
+        counter.set(count);
+    }
+
+    public void stopCounting() {
+        counter.remove();
+    }
+}
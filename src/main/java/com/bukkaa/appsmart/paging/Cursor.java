@@ -0,0 +1,80 @@
+package com.bukkaa.appsmart.paging;
+
+import com.bukkaa.appsmart.dto.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Position of the last returned row in a keyset (seek) listing ordered by {@code (created_at, id)},
+ * or by another timestamp and id, e.g. the change time in change feeds.
+ * Travels to clients as an opaque URL-safe string.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class Cursor {
+    private static final String SEPARATOR = "|";
+
+    private final Timestamp createdAt;
+    private final UUID id;
+
+
+    public String encode() {
+        String raw = createdAt.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separatorIdx = raw.indexOf(SEPARATOR);
+            return new Cursor(Timestamp.from(Instant.parse(raw.substring(0, separatorIdx))),
+                              UUID.fromString(raw.substring(separatorIdx + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded, ex);
+        }
+    }
+
+    /**
+     * Builds a page out of rows fetched with the limit of {@code size + 1}:
+     * the extra row only signals that there is a next page and is not returned.
+     */
+    public static <T> CursorPage<T> toPage(List<T> fetched, int size, Function<T, Cursor> cursorOf) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = new ArrayList<>(fetched.subList(0, size));
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    /**
+     * Fetches a keyset page of the given size, either the first one or the one after the encoded cursor.
+     */
+    public static <T> CursorPage<T> seek(String cursor, int size,
+                                         Function<PageRequest, List<T>> firstPage,
+                                         BiFunction<Cursor, PageRequest, List<T>> pageAfter,
+                                         Function<T, Cursor> cursorOf) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one!");
+        }
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<T> fetched = cursor == null
+                ? firstPage.apply(limit)
+                : pageAfter.apply(decode(cursor), limit);
+        return toPage(fetched, size, cursorOf);
+    }
+}
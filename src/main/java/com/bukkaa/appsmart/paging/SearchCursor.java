@@ -0,0 +1,48 @@
+package com.bukkaa.appsmart.paging;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last returned row in a search ordered by {@code (rank desc, created_at, id)}.
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class SearchCursor extends Cursor {
+    private static final String SEPARATOR = "|";
+
+    private final double rank;
+
+
+    public SearchCursor(double rank, Timestamp createdAt, UUID id) {
+        super(createdAt, id);
+        this.rank = rank;
+    }
+
+    @Override
+    public String encode() {
+        String raw = rank + SEPARATOR + getCreatedAt().toInstant() + SEPARATOR + getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int firstIdx = raw.indexOf(SEPARATOR);
+            int secondIdx = raw.indexOf(SEPARATOR, firstIdx + 1);
+            return new SearchCursor(Double.parseDouble(raw.substring(0, firstIdx)),
+                                    Timestamp.from(Instant.parse(raw.substring(firstIdx + 1, secondIdx))),
+                                    UUID.fromString(raw.substring(secondIdx + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded, ex);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.entity.Customer;
+
+import java.util.function.Consumer;
+
+public interface CustomerExportRepository {
+
+    /**
+     * Walks through all customers along with their products with a single forward-only cursor,
+     * ordered by {@code (created_at, id)}. Every customer is passed to the consumer detached, with all its products,
+     * and is cleared from the persistence context afterwards, so that memory is bounded by the biggest customer.
+     *
+     * @return number of exported customers
+     */
+    long exportWithProducts(Consumer<Customer> consumer);
+}
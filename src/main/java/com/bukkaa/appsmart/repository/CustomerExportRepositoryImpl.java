@@ -0,0 +1,63 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.QueryHints;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class CustomerExportRepositoryImpl implements CustomerExportRepository {
+    private static final int FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Override
+    public long exportWithProducts(Consumer<Customer> consumer) {
+        long exported = 0;
+        Customer current = null;
+        try (Stream<Object[]> rows = entityManager.createQuery(
+                        "select c, p from customers c left join products p on p.customer = c " +
+                        "order by c.createdAt, c.id, p.createdAt, p.id", Object[].class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                // a full export would push hot entries out of the second-level cache
+                .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()) {
+
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Customer customer = (Customer) row[0];
+                Product product = (Product) row[1];
+
+                if (current == null || !current.getId().equals(customer.getId())) {
+                    if (current != null) {
+                        consumer.accept(current);
+                        exported++;
+                    }
+                    // detaches the previous customer's products along with the new customer itself
+                    entityManager.clear();
+                    current = customer;
+                    current.setProducts(new ArrayList<>());
+                }
+                if (product != null) {
+                    current.getProducts().add(product);
+                }
+            }
+        }
+        if (current != null) {
+            consumer.accept(current);
+            exported++;
+        }
+        entityManager.clear();
+        return exported;
+    }
+}
@@ -1,10 +1,95 @@
 package com.bukkaa.appsmart.repository;
 
+import com.bukkaa.appsmart.dto.CustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface CustomerRepository extends PagingAndSortingRepository<Customer, UUID> {
+public interface CustomerRepository extends PagingAndSortingRepository<Customer, UUID>,
+                                            CustomerExportRepository, CustomerVersionedUpdateRepository {
 
+    String SELECT_CUSTOMER_DTO = "select new com.bukkaa.appsmart.dto.CustomerDto(" +
+                                 "c.id, c.title, c.isDeleted, c.createdAt, c.modifiedAt) from customers c ";
+
+    @Query("select c from customers c order by c.createdAt, c.id")
+    Slice<Customer> findAllBy(Pageable pageable);
+
+    @EntityGraph(attributePaths = "products")
+    Optional<Customer> findWithProductsById(UUID id);
+
+    @Query("select distinct c from customers c left join fetch c.products where c.id in :ids")
+    List<Customer> findAllWithProductsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(SELECT_CUSTOMER_DTO + "order by c.createdAt, c.id")
+    Slice<CustomerDto> findAllDtosBy(Pageable pageable);
+
+    @Query(SELECT_CUSTOMER_DTO + "order by c.createdAt, c.id")
+    List<CustomerDto> findFirstSeekDtoPage(Pageable pageable);
+
+    /**
+     * The redundant {@code >=} bound lets the index scan start at the cursor: the OR alone can't bound it,
+     * and every earlier row would be read and filtered out.
+     */
+    @Query(SELECT_CUSTOMER_DTO +
+           "where c.createdAt >= :createdAt and (c.createdAt > :createdAt or c.id > :id) " +
+           "order by c.createdAt, c.id")
+    List<CustomerDto> findSeekDtoPageAfter(@Param("createdAt") Timestamp createdAt,
+                                           @Param("id") UUID id,
+                                           Pageable pageable);
+
+    /**
+     * Customers created or modified after the given position, up to {@code until}, in the order of the change time.
+     * The change time range bounds the {@code customers_changed_at_id_idx} scan on both ends,
+     * so a poll reads only the delta rather than the history up to {@code until}.
+     */
+    @Query(SELECT_CUSTOMER_DTO +
+           "where coalesce(c.modifiedAt, c.createdAt) between :changedAt and :until " +
+           "  and (coalesce(c.modifiedAt, c.createdAt) > :changedAt or c.id > :id) " +
+           "order by coalesce(c.modifiedAt, c.createdAt), c.id")
+    List<CustomerDto> findDtosChangedAfter(@Param("changedAt") Timestamp changedAt,
+                                           @Param("id") UUID id,
+                                           @Param("until") Timestamp until,
+                                           Pageable pageable);
+
+    @Query("select p.id from products p where p.customer.id = :customerId order by p.createdAt, p.id")
+    List<UUID> findProductIdsByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+    /**
+     * Deletes the customer's products with a single statement, without loading them.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from products p where p.customer.id = :customerId")
+    int deleteProductsByCustomerId(@Param("customerId") UUID customerId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from products p where p.id in :ids")
+    int deleteProductsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Unlike {@code deleteById}, neither loads the customer nor cascades to its products, they must be deleted first.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from customers c where c.id = :id")
+    int deleteCustomerById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update customers c set c.isDeleted = true, c.modifiedAt = :modifiedAt, c.version = c.version + 1 " +
+           "where c.id in :ids and c.isDeleted = false")
+    int markDeletedByIdIn(@Param("ids") Collection<UUID> ids,
+                          @Param("modifiedAt") Timestamp modifiedAt);
+
+    @Query("select c.version as version, coalesce(c.modifiedAt, c.createdAt) as lastModified " +
+           "from customers c where c.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") UUID id);
 }
@@ -0,0 +1,17 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.UpdateCustomerDto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public interface CustomerVersionedUpdateRepository {
+
+    /**
+     * Applies not null changes to the customer with a single {@code UPDATE ... WHERE id = ? AND version = ?},
+     * without reading it first. The version is incremented along with the update.
+     *
+     * @return 1 if updated, 0 if there's no such customer or its version differs
+     */
+    int updateIfVersion(UUID id, long version, UpdateCustomerDto changes, Timestamp modifiedAt);
+}
@@ -0,0 +1,42 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.UpdateCustomerDto;
+import com.bukkaa.appsmart.entity.Customer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public class CustomerVersionedUpdateRepositoryImpl implements CustomerVersionedUpdateRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Override
+    public int updateIfVersion(UUID id, long version, UpdateCustomerDto changes, Timestamp modifiedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Customer> update = cb.createCriteriaUpdate(Customer.class);
+        Root<Customer> customer = update.from(Customer.class);
+
+        if (changes.getTitle() != null) {
+            update.set(customer.<String>get("title"), changes.getTitle());
+        }
+        update.set(customer.<Boolean>get("isDeleted"), changes.isDeleted());
+        update.set(customer.<Timestamp>get("modifiedAt"), modifiedAt);
+        update.set(customer.<Long>get("version"), cb.sum(customer.<Long>get("version"), 1L));
+        update.where(cb.equal(customer.get("id"), id),
+                     cb.equal(customer.get("version"), version));
+
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        // the second-level cache region is cleared only after commit, reads in this transaction would get the old state
+        entityManager.getEntityManagerFactory().getCache().evict(Customer.class, id);
+        return updated;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bukkaa.appsmart.repository;
+
+import java.sql.Timestamp;
+
+/**
+ * Version and last modification time of an entity, read without loading the entity itself.
+ */
+public interface EntityVersion {
+
+    long getVersion();
+
+    Timestamp getLastModified();
+}
@@ -0,0 +1,16 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.entity.Product;
+
+import java.util.stream.Stream;
+
+public interface ProductBatchRepository {
+
+    /**
+     * Persists new products in JDBC batches, flushing and clearing the persistence context after every batch
+     * so that memory stays flat however long the stream is.
+     *
+     * @return number of persisted products
+     */
+    long insertAll(Stream<Product> products);
+}
@@ -0,0 +1,45 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.entity.Product;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public class ProductBatchRepositoryImpl implements ProductBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+
+    @Override
+    public long insertAll(Stream<Product> products) {
+        // imported products aren't put into the second-level cache, they'd only push hot entries out
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            long persisted = 0;
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                entityManager.persist(iterator.next());
+                if (++persisted % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return persisted;
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+}
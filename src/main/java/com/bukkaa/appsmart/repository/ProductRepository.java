@@ -1,13 +1,87 @@
 package com.bukkaa.appsmart.repository;
 
+import com.bukkaa.appsmart.dto.ProductDto;
 import com.bukkaa.appsmart.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface ProductRepository extends PagingAndSortingRepository<Product, UUID> {
+public interface ProductRepository extends PagingAndSortingRepository<Product, UUID>,
+                                           ProductBatchRepository, ProductVersionedUpdateRepository,
+                                           ProductSearchRepository {
+
+    String SELECT_PRODUCT_DTO = "select new com.bukkaa.appsmart.dto.ProductDto(" +
+                                "p.id, p.title, p.description, p.price, p.isDeleted, p.createdAt, p.modifiedAt) from products p ";
 
     Page<Product> findAllProductsByCustomerId(UUID customerId, Pageable pageable);
+
+    long countByCustomerId(UUID customerId);
+
+    @Query("select p.id from products p where p.customer.id = :customerId")
+    List<UUID> findIdsByCustomerId(@Param("customerId") UUID customerId);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.customer.id = :customerId order by p.createdAt, p.id")
+    Slice<ProductDto> findDtosSliceByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.customer.id = :customerId order by p.createdAt, p.id")
+    List<ProductDto> findFirstSeekDtoPageByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+    /**
+     * Bounded by {@code p.createdAt >= :createdAt} too, so the index scan starts at the cursor, see
+     * {@link CustomerRepository#findSeekDtoPageAfter}.
+     */
+    @Query(SELECT_PRODUCT_DTO +
+           "where p.customer.id = :customerId " +
+           "  and p.createdAt >= :createdAt and (p.createdAt > :createdAt or p.id > :id) " +
+           "order by p.createdAt, p.id")
+    List<ProductDto> findSeekDtoPageByCustomerIdAfter(@Param("customerId") UUID customerId,
+                                                      @Param("createdAt") Timestamp createdAt,
+                                                      @Param("id") UUID id,
+                                                      Pageable pageable);
+
+    /**
+     * Products created or modified after the given position, up to {@code until}, in the order of the change time.
+     */
+    @Query(SELECT_PRODUCT_DTO +
+           "where coalesce(p.modifiedAt, p.createdAt) between :changedAt and :until " +
+           "  and (coalesce(p.modifiedAt, p.createdAt) > :changedAt or p.id > :id) " +
+           "order by coalesce(p.modifiedAt, p.createdAt), p.id")
+    List<ProductDto> findDtosChangedAfter(@Param("changedAt") Timestamp changedAt,
+                                          @Param("id") UUID id,
+                                          @Param("until") Timestamp until,
+                                          Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update products p set p.isDeleted = true, p.modifiedAt = :modifiedAt, p.version = p.version + 1 " +
+           "where p.id in :ids and p.isDeleted = false")
+    int markDeletedByIdIn(@Param("ids") Collection<UUID> ids,
+                          @Param("modifiedAt") Timestamp modifiedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update products p set p.isDeleted = true, p.modifiedAt = :modifiedAt, p.version = p.version + 1 " +
+           "where p.customer.id = :customerId and p.isDeleted = false")
+    int markDeletedByCustomerId(@Param("customerId") UUID customerId,
+                                @Param("modifiedAt") Timestamp modifiedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update products p set p.price = p.price * :factor, p.modifiedAt = :modifiedAt, p.version = p.version + 1 " +
+           "where p.customer.id = :customerId and p.isDeleted = false")
+    int repriceByCustomerId(@Param("customerId") UUID customerId,
+                            @Param("factor") BigDecimal factor,
+                            @Param("modifiedAt") Timestamp modifiedAt);
+
+    @Query("select p.version as version, coalesce(p.modifiedAt, p.createdAt) as lastModified " +
+           "from products p where p.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") UUID id);
 }
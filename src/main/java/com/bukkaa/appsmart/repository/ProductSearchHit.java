@@ -0,0 +1,19 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.ProductDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Found product along with its relevance to the searched text, {@code 0} if no text was searched.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ProductSearchHit {
+
+    private final ProductDto product;
+
+    private final double rank;
+}
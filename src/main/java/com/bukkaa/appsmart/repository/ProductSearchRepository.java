@@ -0,0 +1,18 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
+import com.bukkaa.appsmart.paging.SearchCursor;
+
+import java.util.List;
+
+public interface ProductSearchRepository {
+
+    /**
+     * Finds products matching the filter ordered by {@code (rank desc, created_at, id)}, starting after the cursor.
+     * On PostgreSQL the description is matched with full-text search and ranked with {@code ts_rank},
+     * on other databases it has to contain every searched word and all matches have the same rank.
+     *
+     * @param after position of the last row of the previous page, {@code null} for the first page
+     */
+    List<ProductSearchHit> search(ProductSearchFilter filter, SearchCursor after, int limit);
+}
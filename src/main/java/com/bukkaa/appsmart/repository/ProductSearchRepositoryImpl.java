@@ -0,0 +1,130 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
+import com.bukkaa.appsmart.paging.SearchCursor;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+    /**
+     * Must stay the same as in the {@code products_description_fts_idx} expression for the index to be used.
+     */
+    private static final String DESCRIPTION_TSVECTOR = "to_tsvector('english', coalesce(p.description, ''))";
+    private static final String TEXT_TSQUERY = "plainto_tsquery('english', :text)";
+    private static final String NO_RANK = "cast(0 as double precision)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ProductSearchHit> search(ProductSearchFilter filter, SearchCursor after, int limit) {
+        boolean fullText = isPostgres();
+        boolean ranked = filter.getText() != null;
+        String rank = ranked && fullText
+                ? "cast(ts_rank(" + DESCRIPTION_TSVECTOR + ", " + TEXT_TSQUERY + ") as double precision)"
+                : NO_RANK;
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        if (filter.getTitle() != null) {
+            conditions.add("lower(p.title) like :title escape '\\'");
+            params.put("title", escapeLike(filter.getTitle().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (ranked) {
+            if (fullText) {
+                conditions.add(DESCRIPTION_TSVECTOR + " @@ " + TEXT_TSQUERY);
+                params.put("text", filter.getText());
+            } else {
+                List<String> words = words(filter.getText());
+                for (int i = 0; i < words.size(); i++) {
+                    conditions.add("lower(p.description) like :word" + i + " escape '\\'");
+                    params.put("word" + i, "%" + escapeLike(words.get(i)) + "%");
+                }
+            }
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add("p.price >= :minPrice");
+            params.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("p.price <= :maxPrice");
+            params.put("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getDeleted() != null) {
+            conditions.add("p.is_deleted = :deleted");
+            params.put("deleted", filter.getDeleted());
+        }
+        if (after != null) {
+            // the >= bound lets unranked continuations start the products_created_at_id_idx scan at the cursor
+            String afterCreated = "(p.created_at >= :afterCreatedAt and (p.created_at > :afterCreatedAt or p.id > :afterId))";
+            if (ranked) {
+                conditions.add("(" + rank + " < :afterRank or (" + rank + " = :afterRank and " + afterCreated + "))");
+                params.put("afterRank", after.getRank());
+            } else {
+                conditions.add(afterCreated);
+            }
+            params.put("afterCreatedAt", after.getCreatedAt());
+            params.put("afterId", after.getId());
+        }
+
+        String sql = "select cast(p.id as varchar(36)), p.title, p.description, p.price, p.is_deleted, " +
+                     "p.created_at, p.modified_at, " + rank + " as search_rank " +
+                     "from products p " +
+                     (conditions.isEmpty() ? "" : "where " + String.join(" and ", conditions) + " ") +
+                     "order by search_rank desc, p.created_at, p.id";
+
+        Query query = entityManager.createNativeQuery(sql).setMaxResults(limit);
+        params.forEach(query::setParameter);
+        return ((List<Object[]>) query.getResultList()).stream()
+                .map(ProductSearchRepositoryImpl::toHit)
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Asks the database itself rather than Hibernate's dialect, as the dialect could be set up for another database.
+     */
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    private static ProductSearchHit toHit(Object[] row) {
+        ProductDto dto = new ProductDto((String) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                                        (Boolean) row[4], (Timestamp) row[5], (Timestamp) row[6]);
+        return new ProductSearchHit(dto, ((Number) row[7]).doubleValue());
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
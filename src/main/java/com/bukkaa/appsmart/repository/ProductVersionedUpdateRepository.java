@@ -0,0 +1,17 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.UpdateProductDto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public interface ProductVersionedUpdateRepository {
+
+    /**
+     * Applies not null changes to the product with a single {@code UPDATE ... WHERE id = ? AND version = ?},
+     * without reading it first. The version is incremented along with the update.
+     *
+     * @return 1 if updated, 0 if there's no such product or its version differs
+     */
+    int updateIfVersion(UUID id, long version, UpdateProductDto changes, Timestamp modifiedAt);
+}
@@ -0,0 +1,48 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.dto.UpdateProductDto;
+import com.bukkaa.appsmart.entity.Product;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public class ProductVersionedUpdateRepositoryImpl implements ProductVersionedUpdateRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Override
+    public int updateIfVersion(UUID id, long version, UpdateProductDto changes, Timestamp modifiedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+
+        if (changes.getTitle() != null) {
+            update.set(product.<String>get("title"), changes.getTitle());
+        }
+        if (changes.getDescription() != null) {
+            update.set(product.<String>get("description"), changes.getDescription());
+        }
+        if (changes.getPrice() != null) {
+            update.set(product.get("price"), changes.getPrice());
+        }
+        update.set(product.<Boolean>get("isDeleted"), changes.isDeleted());
+        update.set(product.<Timestamp>get("modifiedAt"), modifiedAt);
+        update.set(product.<Long>get("version"), cb.sum(product.<Long>get("version"), 1L));
+        update.where(cb.equal(product.get("id"), id),
+                     cb.equal(product.get("version"), version));
+
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        // the second-level cache region is cleared only after commit, reads in this transaction would get the old state
+        entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+        return updated;
+    }
+}
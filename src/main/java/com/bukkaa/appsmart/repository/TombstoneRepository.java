@@ -0,0 +1,36 @@
+package com.bukkaa.appsmart.repository;
+
+import com.bukkaa.appsmart.entity.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+public interface TombstoneRepository extends CrudRepository<Tombstone, UUID> {
+
+    @Query("select t from tombstones t " +
+           "where t.entityType = :entityType " +
+           "  and t.deletedAt between :deletedAt and :until " +
+           "  and (t.deletedAt > :deletedAt or t.entityId > :entityId) " +
+           "order by t.deletedAt, t.entityId")
+    List<Tombstone> findDeletedAfter(@Param("entityType") Tombstone.EntityType entityType,
+                                     @Param("deletedAt") Timestamp deletedAt,
+                                     @Param("entityId") UUID entityId,
+                                     @Param("until") Timestamp until,
+                                     Pageable pageable);
+
+    /**
+     * Records tombstones of all the customer's products with a single {@code INSERT ... SELECT}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("insert into tombstones (entityId, entityType, deletedAt) " +
+           "select p.id, :entityType, :deletedAt from products p where p.customer.id = :customerId")
+    int insertProductTombstonesByCustomerId(@Param("customerId") UUID customerId,
+                                            @Param("entityType") Tombstone.EntityType entityType,
+                                            @Param("deletedAt") Timestamp deletedAt);
+}
@@ -1,5 +1,8 @@
 package com.bukkaa.appsmart.security;
 
+import com.bukkaa.appsmart.metrics.MetricNames;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
@@ -20,13 +23,14 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtTokenFilter extends OncePerRequestFilter {
     private final JwtTokenService tokenService;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String token = JwtTokenService.shrinkToken(request.getHeader(HttpHeaders.AUTHORIZATION));
 
-        if (StringUtils.hasText(token) && tokenService.validateToken(token)) {
-            String username = tokenService.extractUsername(token);
+        if (StringUtils.hasText(token)) {
+            String username = parseUsername(token);
 
             AbstractAuthenticationToken authentication = new BearerAuthenticationToken(username);
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -38,4 +42,16 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private String parseUsername(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+        try {
+            String username = tokenService.parseClaims(token).getSubject();
+            outcome = "valid";
+            return username;
+        } finally {
+            sample.stop(meterRegistry.timer(MetricNames.JWT_VALIDATION, "outcome", outcome));
+        }
+    }
 }
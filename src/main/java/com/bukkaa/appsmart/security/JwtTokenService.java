@@ -1,5 +1,6 @@
 package com.bukkaa.appsmart.security;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.util.StringUtils;
 
 public interface JwtTokenService {
@@ -10,6 +11,12 @@ public interface JwtTokenService {
 
     String extractUsername(String token);
 
+    /**
+     * Validates the token and returns its claims, parsing the token at most once while it's not expired.
+     * Returned claims are shared between calls and must not be modified.
+     */
+    Claims parseClaims(String token);
+
     static String shrinkToken(String bearerToken) {
         return StringUtils.hasText(bearerToken)
                 && bearerToken.startsWith("Bearer")
@@ -1,5 +1,8 @@
 package com.bukkaa.appsmart.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -10,8 +13,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtTokenServiceImpl implements JwtTokenService {
@@ -23,6 +32,22 @@ public class JwtTokenServiceImpl implements JwtTokenService {
     @Value("${appsmart.security.token.expirationMs}")
     private long expirationMs;
 
+    @Value("${appsmart.security.token.cacheSize:10000}")
+    private long cacheSize;
+
+    /**
+     * Claims of already verified tokens keyed by the token digest, each entry lives until its token expires.
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+
+    @PostConstruct
+    public void initVerifiedTokensCache() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpiration())
+                .build();
+    }
 
     @Override
     public String generateToken(String username) {
@@ -59,4 +84,50 @@ public class JwtTokenServiceImpl implements JwtTokenService {
                 .getBody()
                 .getSubject();
     }
+
+    @Override
+    public Claims parseClaims(String token) {
+        return verifiedTokens.get(digest(token), key -> {
+            Claims claims = Jwts.parser()
+                    .setSigningKey(secret)
+                    .parseClaimsJws(token)
+                    .getBody();
+
+            if (claims == null || claims.getSubject() == null) {
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED, "Can't authorize");
+            }
+            return claims;
+        });
+    }
+
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+
+    private class UntilTokenExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull Claims claims, long currentTime) {
+            long ttlMs = claims.getExpiration() != null
+                            ? claims.getExpiration().getTime() - System.currentTimeMillis()
+                            : expirationMs;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
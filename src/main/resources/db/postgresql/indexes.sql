@@ -0,0 +1,10 @@
+-- Indexes Hibernate can't declare: executed on startup against PostgreSQL only, every statement is idempotent.
+
+-- product search: title prefix (trigrams also serve infix matches) and description full-text
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS products_title_trgm_idx ON products USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS products_description_fts_idx ON products USING gin (to_tsvector('english', coalesce(description, '')));
+
+-- change feeds: rows are read in the order of their last change time
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customers_changed_at_id_idx ON customers ((coalesce(modified_at, created_at)), id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS products_changed_at_id_idx ON products ((coalesce(modified_at, created_at)), id);
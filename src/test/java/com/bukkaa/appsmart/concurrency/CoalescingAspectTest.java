@@ -0,0 +1,167 @@
+package com.bukkaa.appsmart.concurrency;
+
+import com.bukkaa.appsmart.metrics.MetricNames;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingAspectTest {
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CoalescingAspect aspect;
+    private StubReader target;
+    private StubReader reader;
+    private ExecutorService executor;
+
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new CoalescingAspect(meterRegistry);
+        target = new StubReader();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        reader = factory.getProxy();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+
+    @Test
+    void concurrentEqualCalls_shareSingleExecution() throws Exception {
+        Future<Optional<List<String>>> leading = executor.submit(() -> reader.read("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Optional<List<String>>>> waiting = new ArrayList<>();
+        for (int i = 1; i < CALLERS; i++) {
+            waiting.add(executor.submit(() -> reader.read("a")));
+        }
+        awaitCoalesced(CALLERS - 1);
+        target.release.countDown();
+
+        Optional<List<String>> result = leading.get(5, TimeUnit.SECONDS);
+        for (Future<Optional<List<String>>> call : waiting) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        }
+        assertThat(target.executions).hasValue(1);
+        assertThat(aspect.inFlightCalls()).isZero();
+    }
+
+    @Test
+    void callsWithOtherArguments_arentCoalesced() throws Exception {
+        Future<Optional<List<String>>> leading = executor.submit(() -> reader.read("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        reader.read("b");
+        target.release.countDown();
+        leading.get(5, TimeUnit.SECONDS);
+
+        assertThat(target.executions).hasValue(2);
+        assertThat(meterRegistry.find(MetricNames.COALESCED_CALLS).counter()).isNull();
+    }
+
+    @Test
+    void completedCall_isntReused() {
+        target.release.countDown();
+
+        Optional<List<String>> first = reader.read("a");
+        Optional<List<String>> second = reader.read("a");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(target.executions).hasValue(2);
+    }
+
+    @Test
+    void failedCall_failsWaitingCalls_withSameException() throws Exception {
+        target.failure = new IllegalArgumentException("Wrong!");
+        Future<Optional<List<String>>> leading = executor.submit(() -> reader.read("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Optional<List<String>>> waiting = executor.submit(() -> reader.read("a"));
+        awaitCoalesced(1);
+        target.release.countDown();
+
+        assertThatThrownBy(() -> leading.get(5, TimeUnit.SECONDS)).hasCause(target.failure);
+        assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS)).hasCause(target.failure);
+        assertThat(target.executions).hasValue(1);
+        assertThat(aspect.inFlightCalls()).isZero();
+    }
+
+    @Test
+    void callWithinTransaction_isntCoalesced() throws Exception {
+        Future<Optional<List<String>>> leading = executor.submit(() -> reader.read("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // runs while the leading call is still blocked
+            reader.read("a");
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        target.release.countDown();
+        leading.get(5, TimeUnit.SECONDS);
+
+        assertThat(target.executions).hasValue(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        executor.shutdownNow();
+    }
+
+
+    private void awaitCoalesced(int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescedCalls() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(coalescedCalls()).isEqualTo(calls);
+    }
+
+    private double coalescedCalls() {
+        return meterRegistry.counter(MetricNames.COALESCED_CALLS, "class", "StubReader", "method", "read").count();
+    }
+
+
+    static class StubReader {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger executions = new AtomicInteger();
+        private RuntimeException failure;
+
+        @Coalesced
+        public Optional<List<String>> read(String key) {
+            // only the first execution waits to be released
+            if (executions.incrementAndGet() == 1) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return Optional.of(new ArrayList<>(List.of(key)));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bukkaa.appsmart.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsTest {
+
+    @Test
+    void newExecutor_isAvailableOnlyFromJava21() throws Exception {
+        Optional<ExecutorService> executor = VirtualThreads.newExecutor();
+
+        assertThat(executor.isPresent()).isEqualTo(Runtime.version().feature() >= 21);
+        if (executor.isPresent()) {
+            assertThat(executor.get().submit(() -> 42).get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            executor.get().shutdown();
+        }
+    }
+}
@@ -1,28 +1,43 @@
 package com.bukkaa.appsmart.controller;
 
+import com.bukkaa.appsmart.dto.BatchGetEntry;
+import com.bukkaa.appsmart.dto.CursorPage;
 import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
+import com.bukkaa.appsmart.dto.ProductDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
 import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.CustomerRemovalManager;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import com.bukkaa.appsmart.mapper.CustomerMapperImpl;
 import com.bukkaa.appsmart.mapper.ProductMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -34,6 +49,7 @@ import static org.mockito.Mockito.*;
 class CustomerControllerTest {
 
     private CustomerManager manager;
+    private CustomerRemovalManager removalManager;
     private CustomerMapper mapper;
 
     private CustomerController controller;
@@ -42,9 +58,10 @@ class CustomerControllerTest {
     @BeforeEach
     public void init() {
         manager = mock(CustomerManager.class);
+        removalManager = mock(CustomerRemovalManager.class);
         mapper = spy(CustomerMapperImpl.class);
         ReflectionTestUtils.setField(mapper, "productMapper", spy(ProductMapperImpl.class));
-        controller = new CustomerController(manager, mapper);
+        controller = new CustomerController(manager, removalManager, mapper, new ObjectMapper());
     }
 
 
@@ -78,7 +95,7 @@ class CustomerControllerTest {
         assertThat(body.getCreatedAt()).isEqualTo(expected.getCreatedAt());
         assertThat(body.getModifiedAt()).isEqualTo(expected.getModifiedAt());
         assertThat(body.isDeleted()).isEqualTo(expected.isDeleted());
-        assertThat(body.getProducts()).isNotNull().isEmpty();
+        assertThat(body.getProducts()).isNull();
     }
 
     @Test
@@ -104,7 +121,7 @@ class CustomerControllerTest {
         when(mapper.toDto(eq(expected))).thenCallRealMethod();
 
 
-        ResponseEntity<CustomerDto> response = controller.findCustomer(customerId.toString());
+        ResponseEntity<CustomerDto> response = controller.findCustomer(customerId.toString(), null, null);
 
         verify(mapper, times(1)).toDto(eq(expected));
         verify(manager, times(1)).findCustomer(eq(customerId.toString()));
@@ -119,14 +136,14 @@ class CustomerControllerTest {
         assertThat(body.getCreatedAt()).isEqualTo(expected.getCreatedAt());
         assertThat(body.getModifiedAt()).isEqualTo(expected.getModifiedAt());
         assertThat(body.isDeleted()).isEqualTo(expected.isDeleted());
-        assertThat(body.getProducts()).isNotNull().isEmpty();
+        assertThat(body.getProducts()).isNull();
     }
 
     @Test
     void findCustomer_returnsNotFound() {
         when(manager.findCustomer(anyString())).thenReturn(Optional.empty());
 
-        ResponseEntity<CustomerDto> response = controller.findCustomer("aaa");
+        ResponseEntity<CustomerDto> response = controller.findCustomer("aaa", null, null);
 
         verify(mapper, never()).toDto(any(Customer.class));
         verify(manager, times(1)).findCustomer(anyString());
@@ -134,6 +151,43 @@ class CustomerControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void findCustomer_returnsNotModified_withoutLoadingCustomer() {
+        UUID customerId = UUID.randomUUID();
+        when(manager.findCustomerVersion(eq(customerId.toString())))
+                .thenReturn(Optional.of(entityVersion(3, Timestamp.from(Instant.now()))));
+        String etag = "\"3\"";
+
+        ResponseEntity<CustomerDto> response = controller.findCustomer(customerId.toString(), null, "\"1\", " + etag);
+
+        verify(manager, never()).findCustomer(anyString());
+        verify(mapper, never()).toDto(any(Customer.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(response.hasBody()).isFalse();
+    }
+
+    @Test
+    void findCustomer_returnsBodyWithNewETag_ifModified() {
+        UUID customerId = UUID.randomUUID();
+        Customer expected = new Customer();
+        expected.setId(customerId);
+        expected.setCreatedAt(Timestamp.from(Instant.now().minusSeconds(60)));
+        expected.setModifiedAt(Timestamp.from(Instant.now()));
+        expected.setVersion(2);
+        when(manager.findCustomerVersion(eq(customerId.toString())))
+                .thenReturn(Optional.of(entityVersion(expected.getVersion(), expected.getModifiedAt())));
+        when(manager.findCustomer(eq(customerId.toString()))).thenReturn(Optional.of(expected));
+
+        ResponseEntity<CustomerDto> response = controller.findCustomer(customerId.toString(), null, "\"1\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"2\"");
+        assertThat(response.getHeaders().getLastModified()).isEqualTo(expected.getModifiedAt().getTime() / 1000 * 1000);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getId()).isEqualTo(customerId.toString());
+    }
+
     @Test
     void getAllCustomers_positive() {
         int page = 0;
@@ -141,25 +195,31 @@ class CustomerControllerTest {
         List<Customer> expectedList = IntStream.range(0, size)
                 .mapToObj(i -> {
                     Customer customer = new Customer();
+                    customer.setId(UUID.randomUUID());
                     customer.setCreatedAt(Timestamp.from(Instant.now()));
                     customer.setTitle("Customer #" + i);
                     return customer;
                 })
                 .collect(Collectors.toList());
+        List<CustomerDto> projected = expectedList.stream()
+                .map(customer -> new CustomerDto(customer.getId(), customer.getTitle(), customer.isDeleted(),
+                                                 customer.getCreatedAt(), customer.getModifiedAt()))
+                .collect(Collectors.toList());
 
-        Page<Customer> expectedPage = new PageImpl<>(expectedList);
+        Slice<CustomerDto> expectedSlice = new SliceImpl<>(projected, PageRequest.of(page, size), true);
 
-        when(manager.getAllCustomersPageable(eq(page), eq(size))).thenReturn(expectedPage);
+        when(manager.getAllCustomerDtosSlice(eq(page), eq(size))).thenReturn(expectedSlice);
 
-        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size);
+        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size, null);
 
-        verify(mapper, times(1)).toDtos(eq(expectedList));
-        verify(manager, times(1)).getAllCustomersPageable(eq(page), eq(size));
+        verify(mapper, never()).toDtos(anyList());
+        verify(manager, times(1)).getAllCustomerDtosSlice(eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.hasBody()).isTrue();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(ResponseHeaders.HAS_NEXT)).isEqualTo("true");
 
-        List<CustomerDto> actualList = response.getBody();
+        List<CustomerDto> actualList = new ArrayList<>(response.getBody());
         assertThat(actualList).isNotNull().hasSize(expectedList.size());
 
         actualList.sort((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.getTitle(), o2.getTitle()));
@@ -168,50 +228,126 @@ class CustomerControllerTest {
         for (int i = 0; i < actualList.size(); i++) {
             CustomerDto actual = actualList.get(i);
             Customer expected = expectedList.get(i);
+            assertThat(actual.getId()).isEqualTo(expected.getId().toString());
             assertThat(actual.getTitle()).isEqualTo(expected.getTitle());
             assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
             assertThat(actual.getModifiedAt()).isEqualTo(expected.getModifiedAt());
             assertThat(actual.isDeleted()).isEqualTo(expected.isDeleted());
-            assertThat(actual.getProducts()).isNotNull().isEmpty();
+            assertThat(actual.getProducts()).isNull();
         }
     }
 
+    @Test
+    void findCustomer_expandsProducts() {
+        UUID customerId = UUID.randomUUID();
+        Customer expected = new Customer();
+        expected.setId(customerId);
+        expected.setCreatedAt(Timestamp.from(Instant.now()));
+        expected.setTitle("TITLE");
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setTitle("PRODUCT");
+        expected.getProducts().add(product);
+        when(manager.findCustomerWithProducts(anyString())).thenReturn(Optional.of(expected));
+
+        ResponseEntity<CustomerDto> response = controller.findCustomer(customerId.toString(), List.of("products"), null);
+
+        verify(manager, never()).findCustomer(anyString());
+        verify(manager, times(1)).findCustomerWithProducts(eq(customerId.toString()));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getProducts()).hasSize(1)
+                .first().extracting(ProductDto::getId).isEqualTo(product.getId().toString());
+    }
+
+    @Test
+    void getAllCustomers_expandsProducts() {
+        int page = 0;
+        int size = 10;
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setTitle("TITLE");
+        when(manager.getAllCustomersSliceWithProducts(eq(page), eq(size))).thenReturn(new SliceImpl<>(List.of(customer)));
+
+        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size, List.of("products"));
+
+        verify(manager, never()).getAllCustomerDtosSlice(anyInt(), anyInt());
+        verify(mapper, times(1)).toDtoWithProducts(eq(customer));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull().hasSize(1);
+        assertThat(response.getBody().get(0).getProducts()).isNotNull().isEmpty();
+    }
+
     @Test
     void getAllCustomers_returnsNotFound_whenNoCustomers() {
         int page = 0;
         int size = 10;
-        when(manager.getAllCustomersPageable(page, size)).thenReturn(Page.empty());
+        when(manager.getAllCustomerDtosSlice(page, size)).thenReturn(new SliceImpl<>(List.of()));
 
-        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size);
+        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size, null);
 
         verify(mapper, never()).toDtos(anyList());
-        verify(manager, times(1)).getAllCustomersPageable(eq(page), eq(size));
+        verify(manager, times(1)).getAllCustomerDtosSlice(eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
     @Test
-    void getAllCustomers_returnsNotFound_whenPageLargerThanTotalResults() {
+    void getAllCustomers_returnsNotFound_whenPageBeyondLastOne() {
         int page = 5;
         int size = 10;
-        List<Customer> expectedList = IntStream.range(0, 3)
-                .mapToObj(i -> {
-                    Customer customer = new Customer();
-                    customer.setCreatedAt(Timestamp.from(Instant.now()));
-                    customer.setTitle("Customer #" + i);
-                    return customer;
-                })
-                .collect(Collectors.toList());
-        when(manager.getAllCustomersPageable(page, size)).thenReturn(new PageImpl<>(expectedList));
+        when(manager.getAllCustomerDtosSlice(page, size)).thenReturn(new SliceImpl<>(List.of(), PageRequest.of(page, size), false));
 
-        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size);
+        ResponseEntity<List<CustomerDto>> response = controller.getAllCustomersPageable(page, size, null);
 
         verify(mapper, never()).toDtos(anyList());
-        verify(manager, times(1)).getAllCustomersPageable(eq(page), eq(size));
+        verify(manager, times(1)).getAllCustomerDtosSlice(eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void countCustomers() {
+        when(manager.countCustomers()).thenReturn(42L);
+
+        ResponseEntity<Long> response = controller.countCustomers();
+
+        verify(manager, times(1)).countCustomers();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(42L);
+    }
+
+    @Test
+    void getAllCustomersAfter_positive() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setTitle("Customer");
+        CustomerDto projected = new CustomerDto(customer.getId(), customer.getTitle(), false, customer.getCreatedAt(), null);
+        when(manager.getAllCustomerDtosAfter(eq("CURSOR"), eq(1))).thenReturn(new CursorPage<>(List.of(projected), "NEXT"));
+
+        ResponseEntity<CursorPage<CustomerDto>> response = controller.getAllCustomersAfter("CURSOR", 1);
+
+        verify(manager, times(1)).getAllCustomerDtosAfter(eq("CURSOR"), eq(1));
+        verify(mapper, never()).toDtos(anyList());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getNextCursor()).isEqualTo("NEXT");
+        assertThat(response.getBody().getItems()).hasSize(1)
+                .first().extracting(CustomerDto::getId).isEqualTo(customer.getId().toString());
+    }
+
+    @Test
+    void getAllCustomersAfter_returnsNotFound_whenNoCustomers() {
+        when(manager.getAllCustomerDtosAfter(isNull(), eq(10))).thenReturn(new CursorPage<>(List.of(), null));
+
+        ResponseEntity<CursorPage<CustomerDto>> response = controller.getAllCustomersAfter(null, 10);
+
+        verify(mapper, never()).toDtos(anyList());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void updateCustomer() {
         Customer expected = new Customer();
@@ -225,7 +361,7 @@ class CustomerControllerTest {
 
         UpdateCustomerDto updateDto = UpdateCustomerDto.builder().title("TITLE 2").build();
 
-        ResponseEntity<CustomerDto> response = controller.updateCustomer(customerId.toString(), updateDto);
+        ResponseEntity<CustomerDto> response = controller.updateCustomer(customerId.toString(), null, updateDto);
 
         verify(mapper, times(1)).toDto(eq(expected));
         verify(manager, times(1)).updateCustomer(eq(customerId.toString()), eq(updateDto));
@@ -241,17 +377,151 @@ class CustomerControllerTest {
         assertThat(body.getCreatedAt()).isEqualTo(expected.getCreatedAt());
         assertThat(body.getModifiedAt()).isEqualTo(expected.getModifiedAt());
         assertThat(body.isDeleted()).isEqualTo(expected.isDeleted());
-        assertThat(body.getProducts()).isNotNull().isEmpty();
+        assertThat(body.getProducts()).isNull();
+    }
+
+    @Test
+    void updateCustomer_updatesConditionally_ifMatchGiven() {
+        Customer expected = new Customer();
+        UUID customerId = UUID.randomUUID();
+        expected.setId(customerId);
+        expected.setCreatedAt(Timestamp.from(Instant.now()));
+        expected.setModifiedAt(Timestamp.from(Instant.now()));
+        expected.setVersion(5);
+        UpdateCustomerDto updateDto = UpdateCustomerDto.builder().title("TITLE 2").build();
+        when(manager.updateCustomer(eq(customerId.toString()), eq(4L), eq(updateDto))).thenReturn(expected);
+
+        ResponseEntity<CustomerDto> response = controller.updateCustomer(customerId.toString(), "\"4\"", updateDto);
+
+        verify(manager, never()).updateCustomer(anyString(), any(UpdateCustomerDto.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"5\"");
+    }
+
+    @Test
+    void updateCustomer_throwsIllegalArgumentEx_ifWeakIfMatch() {
+        Exception expected = null;
+        try {
+            controller.updateCustomer(UUID.randomUUID().toString(), "W/\"4\"", new UpdateCustomerDto());
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verifyNoInteractions(manager);
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
     void removeCustomer() {
-        controller.removeCustomer("ID");
+        ResponseEntity<CustomerRemovalDto> response = controller.removeCustomer("ID", false);
 
         verify(manager, times(1)).removeCustomer(eq("ID"));
+        verify(removalManager, never()).startCustomerRemoval(anyString());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void removeCustomer_async_startsRemoval_andPointsToItsProgress() {
+        CustomerRemovalDto removal = CustomerRemovalDto.builder()
+                .id("REMOVAL")
+                .customerId("ID")
+                .status(CustomerRemovalDto.Status.QUEUED)
+                .totalProducts(200_000)
+                .build();
+        when(removalManager.startCustomerRemoval(eq("ID"))).thenReturn(removal);
+
+        ResponseEntity<CustomerRemovalDto> response = controller.removeCustomer("ID", true);
+
+        verify(manager, never()).removeCustomer(anyString());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders().getLocation()).hasToString("/api/v1/customers/removals/REMOVAL");
+        assertThat(response.getBody()).isSameAs(removal);
+    }
+
+    @Test
+    void findCustomerRemoval_answersNotFound_ifUnknown() {
+        when(removalManager.findCustomerRemoval(eq("REMOVAL"))).thenReturn(Optional.empty());
+
+        ResponseEntity<CustomerRemovalDto> response = controller.findCustomerRemoval("REMOVAL");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
 
+    @Test
+    void exportCustomers_writesCustomerPerLine() throws IOException {
+        List<Customer> customers = IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setId(UUID.randomUUID());
+                    customer.setTitle("Customer #" + i);
+                    Product product = new Product();
+                    product.setId(UUID.randomUUID());
+                    product.setTitle("Product #" + i);
+                    customer.setProducts(List.of(product));
+                    return customer;
+                })
+                .collect(Collectors.toList());
+        when(manager.exportCustomersWithProducts(any())).thenAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            customers.forEach(consumer);
+            return (long) customers.size();
+        });
+
+        ResponseEntity<StreamingResponseBody> response = controller.exportCustomers();
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < lines.length; i++) {
+            CustomerDto dto = objectMapper.readValue(lines[i], CustomerDto.class);
+            assertThat(dto.getId()).isEqualTo(customers.get(i).getId().toString());
+            assertThat(dto.getProducts()).hasSize(1);
+            assertThat(dto.getProducts().get(0).getTitle()).isEqualTo("Product #" + i);
+        }
+        verify(mapper, times(3)).toDtoWithProducts(any(Customer.class));
+    }
+
+    @Test
+    void findCustomers_returnsEntriesInRequestOrder_withNotFoundMarkers() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setTitle("TITLE");
+        String missingId = UUID.randomUUID().toString();
+        List<String> ids = List.of(customer.getId().toString(), missingId);
+        when(manager.findCustomers(eq(ids))).thenReturn(List.of(Optional.of(customer), Optional.empty()));
+
+        ResponseEntity<List<BatchGetEntry<CustomerDto>>> response = controller.findCustomers(ids);
+
+        verify(manager, times(1)).findCustomers(eq(ids));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(BatchGetEntry::getId).containsExactlyElementsOf(ids);
+        assertThat(response.getBody()).extracting(BatchGetEntry::isFound).containsExactly(true, false);
+        assertThat(response.getBody().get(0).getItem().getTitle()).isEqualTo(customer.getTitle());
+        assertThat(response.getBody().get(1).getItem()).isNull();
+    }
+
+    @Test
+    void markCustomersDeleted_returnsUpdatedCount() {
+        List<String> ids = List.of(UUID.randomUUID().toString());
+        when(manager.markCustomersDeleted(eq(ids))).thenReturn(1);
+
+        ResponseEntity<Integer> response = controller.markCustomersDeleted(ids);
+
+        verify(manager, times(1)).markCustomersDeleted(eq(ids));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(1);
+    }
+
     @AfterEach
     public void cleanUp() {
         clearAllCaches();
@@ -259,4 +529,18 @@ class CustomerControllerTest {
         mapper = null;
         controller = null;
     }
-}
\ No newline at end of file
+
+    private static EntityVersion entityVersion(long version, Timestamp lastModified) {
+        return new EntityVersion() {
+            @Override
+            public long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Timestamp getLastModified() {
+                return lastModified;
+            }
+        };
+    }
+}
@@ -1,30 +1,48 @@
 package com.bukkaa.appsmart.controller;
 
+import com.bukkaa.appsmart.dto.BatchGetEntry;
+import com.bukkaa.appsmart.dto.CursorPage;
 import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.entity.Product;
 import com.bukkaa.appsmart.manager.ProductManager;
 import com.bukkaa.appsmart.mapper.ProductMapper;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import com.bukkaa.appsmart.mapper.ProductMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -41,7 +59,10 @@ class ProductControllerTest {
     void setUp() {
         manager = mock(ProductManager.class);
         mapper = spy(ProductMapperImpl.class);
-        controller = new ProductController(manager, mapper);
+        controller = new ProductController(manager, mapper, new ObjectMapper(),
+                                           List.of(new MappingJackson2HttpMessageConverter(),
+                                                   new MappingJackson2CborHttpMessageConverter(),
+                                                   new MappingJackson2SmileHttpMessageConverter()));
     }
 
 
@@ -96,6 +117,132 @@ class ProductControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    void createProductsForCustomer_readsJsonArray() throws IOException {
+        String customerId = "ID";
+        when(manager.createProductsForCustomer(eq(customerId), any()))
+                .thenAnswer(invocation -> invocation.<Stream<Product>>getArgument(1).count());
+        String body = "[{\"title\": \"First\", \"price\": 1.00}, {\"title\": \"Second\", \"price\": 2.00}]";
+
+        ResponseEntity<Long> response = controller.createProductsForCustomer(customerId, MediaType.APPLICATION_JSON, toStream(body));
+
+        verify(mapper, times(2)).toModel(any(ProductDto.class));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(2L);
+    }
+
+    @Test
+    void createProductsForCustomer_readsNdjson() throws IOException {
+        String customerId = "ID";
+        when(manager.createProductsForCustomer(eq(customerId), any()))
+                .thenAnswer(invocation -> invocation.<Stream<Product>>getArgument(1).count());
+        String body = "{\"title\": \"First\", \"price\": 1.00}\n{\"title\": \"Second\", \"price\": 2.00}\n{\"title\": \"Third\", \"price\": 3.00}\n";
+
+        ResponseEntity<Long> response = controller.createProductsForCustomer(customerId, MediaType.APPLICATION_NDJSON, toStream(body));
+
+        verify(mapper, times(3)).toModel(any(ProductDto.class));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(3L);
+    }
+
+    @Test
+    void createProductsForCustomer_readsCborSequence() throws IOException {
+        String customerId = "ID";
+        when(manager.createProductsForCustomer(eq(customerId), any()))
+                .thenAnswer(invocation -> invocation.<Stream<Product>>getArgument(1).count());
+        ObjectMapper cborMapper = new CBORMapper();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (String title : List.of("First", "Second")) {
+            body.write(cborMapper.writeValueAsBytes(ProductDto.builder().title(title).price(BigDecimal.ONE).build()));
+        }
+
+        ResponseEntity<Long> response = controller.createProductsForCustomer(customerId, MediaType.APPLICATION_CBOR,
+                                                                             new ByteArrayInputStream(body.toByteArray()));
+
+        verify(mapper, times(2)).toModel(any(ProductDto.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(2L);
+    }
+
+    @Test
+    void createProductsForCustomer_returnsBadRequest_ifEmptyBody() throws IOException {
+        when(manager.createProductsForCustomer(eq("aaa"), any()))
+                .thenAnswer(invocation -> invocation.<Stream<Product>>getArgument(1).count());
+
+        ResponseEntity<Long> response = controller.createProductsForCustomer("aaa", null, toStream(""));
+
+        verify(mapper, never()).toModel(any(ProductDto.class));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void findProducts_returnsEntriesInRequestOrder_withNotFoundMarkers() {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setTitle("Air Max");
+        String missingId = UUID.randomUUID().toString();
+        List<String> ids = List.of(missingId, product.getId().toString());
+        when(manager.findProducts(eq(ids))).thenReturn(List.of(Optional.empty(), Optional.of(product)));
+
+        ResponseEntity<List<BatchGetEntry<ProductDto>>> response = controller.findProducts(ids);
+
+        verify(manager, times(1)).findProducts(eq(ids));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2);
+        assertThat(response.getBody().get(0)).isEqualTo(new BatchGetEntry<>(missingId, false, null));
+        assertThat(response.getBody().get(1).getId()).isEqualTo(product.getId().toString());
+        assertThat(response.getBody().get(1).isFound()).isTrue();
+        assertThat(response.getBody().get(1).getItem().getTitle()).isEqualTo(product.getTitle());
+    }
+
+    @Test
+    void findProducts_returnsBadRequest_ifNoIds() {
+        ResponseEntity<List<BatchGetEntry<ProductDto>>> response = controller.findProducts(List.of());
+
+        verify(manager, never()).findProducts(any());
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void markProductsDeleted_returnsUpdatedCount() {
+        List<String> ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        when(manager.markProductsDeleted(eq(ids))).thenReturn(2);
+
+        ResponseEntity<Integer> response = controller.markProductsDeleted(ids);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(2);
+    }
+
+    @Test
+    void markProductsDeleted_returnsBadRequest_ifNoIds() {
+        ResponseEntity<Integer> response = controller.markProductsDeleted(null);
+
+        verify(manager, never()).markProductsDeleted(any());
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void repriceCustomerProducts_returnsUpdatedCount() {
+        String customerId = UUID.randomUUID().toString();
+        BigDecimal factor = new BigDecimal("1.1");
+        when(manager.repriceCustomerProducts(eq(customerId), eq(factor))).thenReturn(3);
+
+        ResponseEntity<Integer> response = controller.repriceCustomerProducts(customerId, factor);
+
+        verify(manager, times(1)).repriceCustomerProducts(eq(customerId), eq(factor));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(3);
+    }
+
     @Test
     void findAllCustomerProducts_positive() {
         int page = 0;
@@ -106,6 +253,7 @@ class ProductControllerTest {
         List<Product> expectedList = IntStream.range(0, 10)
                 .mapToObj(i -> {
                     Product product = new Product();
+                    product.setId(UUID.randomUUID());
                     product.setCustomer(customer);
                     product.setCreatedAt(Timestamp.from(Instant.now()));
                     product.setTitle("Product #" + i);
@@ -113,19 +261,26 @@ class ProductControllerTest {
                 })
                 .collect(Collectors.toList());
 
-        PageImpl<Product> expectedPage = new PageImpl<>(expectedList);
+        List<ProductDto> projected = expectedList.stream()
+                .map(product -> new ProductDto(product.getId(), product.getTitle(), product.getDescription(),
+                                               product.getPrice(), product.isDeleted(),
+                                               product.getCreatedAt(), product.getModifiedAt()))
+                .collect(Collectors.toList());
+
+        Slice<ProductDto> expectedSlice = new SliceImpl<>(projected, PageRequest.of(page, size), false);
 
-        when(manager.findAllCustomerProductsPageable(eq(customer.getId().toString()), eq(page), eq(size))).thenReturn(expectedPage);
+        when(manager.findAllCustomerProductDtosSlice(eq(customer.getId().toString()), eq(page), eq(size))).thenReturn(expectedSlice);
 
         ResponseEntity<List<ProductDto>> response = controller.findAllCustomerProducts(customer.getId().toString(), page, size);
 
-        verify(mapper, times(1)).toDtos(eq(expectedList));
-        verify(manager, times(1)).findAllCustomerProductsPageable(eq(customer.getId().toString()), eq(page), eq(size));
+        verify(mapper, never()).toDtos(anyList());
+        verify(manager, times(1)).findAllCustomerProductDtosSlice(eq(customer.getId().toString()), eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.hasBody()).isTrue();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(ResponseHeaders.HAS_NEXT)).isEqualTo("false");
 
-        List<ProductDto> actualList = response.getBody();
+        List<ProductDto> actualList = new ArrayList<>(response.getBody());
         assertThat(actualList).isNotNull().hasSize(expectedList.size());
 
         actualList.sort((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.getTitle(), o2.getTitle()));
@@ -148,38 +303,103 @@ class ProductControllerTest {
         int page = 0;
         int size = 10;
 
-        when(manager.findAllCustomerProductsPageable(anyString(), eq(page), eq(size))).thenReturn(Page.empty());
+        when(manager.findAllCustomerProductDtosSlice(anyString(), eq(page), eq(size))).thenReturn(new SliceImpl<>(List.of()));
 
         ResponseEntity<List<ProductDto>> response = controller.findAllCustomerProducts("ID", page, size);
 
         verify(mapper, never()).toDtos(anyList());
-        verify(manager, times(1)).findAllCustomerProductsPageable(anyString(), eq(page), eq(size));
+        verify(manager, times(1)).findAllCustomerProductDtosSlice(anyString(), eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
     @Test
-    void findAllCustomerProducts_returnsNotFound_whenPageLargerThanTotalResults() {
+    void findAllCustomerProducts_returnsNotFound_whenPageBeyondLastOne() {
         int page = 5;
         int size = 10;
-        List<Product> expectedList = IntStream.range(0, 10)
-                .mapToObj(i -> {
-                    Product product = new Product();
-                    product.setCreatedAt(Timestamp.from(Instant.now()));
-                    product.setTitle("Product #" + i);
-                    return product;
-                })
-                .collect(Collectors.toList());
-        when(manager.findAllCustomerProductsPageable(anyString(), eq(page), eq(size))).thenReturn(new PageImpl<>(expectedList));
+        when(manager.findAllCustomerProductDtosSlice(anyString(), eq(page), eq(size)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(page, size), false));
 
         ResponseEntity<List<ProductDto>> response = controller.findAllCustomerProducts("ID", page, size);
 
         verify(mapper, never()).toDtos(anyList());
-        verify(manager, times(1)).findAllCustomerProductsPageable(anyString(), eq(page), eq(size));
+        verify(manager, times(1)).findAllCustomerProductDtosSlice(anyString(), eq(page), eq(size));
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void countCustomerProducts() {
+        when(manager.countCustomerProducts(eq("ID"))).thenReturn(7L);
+
+        ResponseEntity<Long> response = controller.countCustomerProducts("ID");
+
+        verify(manager, times(1)).countCustomerProducts(eq("ID"));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(7L);
+    }
+
+    @Test
+    void findAllCustomerProductsAfter_positive() {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setCreatedAt(Timestamp.from(Instant.now()));
+        product.setTitle("Product");
+        ProductDto projected = new ProductDto(product.getId(), product.getTitle(), null, null, false, product.getCreatedAt(), null);
+        when(manager.findAllCustomerProductDtosAfter(eq("ID"), isNull(), eq(1))).thenReturn(new CursorPage<>(List.of(projected), "NEXT"));
+
+        ResponseEntity<CursorPage<ProductDto>> response = controller.findAllCustomerProductsAfter("ID", null, 1);
+
+        verify(manager, times(1)).findAllCustomerProductDtosAfter(eq("ID"), isNull(), eq(1));
+        verify(mapper, never()).toDtos(anyList());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getNextCursor()).isEqualTo("NEXT");
+        assertThat(response.getBody().getItems()).hasSize(1)
+                .first().extracting(ProductDto::getId).isEqualTo(product.getId().toString());
+    }
+
+    @Test
+    void findAllCustomerProductsAfter_returnsNotFound_whenNoProducts() {
+        when(manager.findAllCustomerProductDtosAfter(anyString(), anyString(), eq(10))).thenReturn(new CursorPage<>(List.of(), null));
+
+        ResponseEntity<CursorPage<ProductDto>> response = controller.findAllCustomerProductsAfter("ID", "CURSOR", 10);
+
+        verify(mapper, never()).toDtos(anyList());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void searchProducts_positive() {
+        ProductDto found = new ProductDto(UUID.randomUUID(), "Air Jordan", "Nike sneakers", BigDecimal.TEN, false,
+                                          Timestamp.from(Instant.now()), null);
+        ProductSearchFilter expectedFilter = ProductSearchFilter.builder()
+                .title("air")
+                .text("sneakers")
+                .maxPrice(BigDecimal.TEN)
+                .deleted(false)
+                .build();
+        when(manager.searchProducts(eq(expectedFilter), isNull(), eq(5))).thenReturn(new CursorPage<>(List.of(found), "NEXT"));
+
+        ResponseEntity<CursorPage<ProductDto>> response =
+                controller.searchProducts("air", "sneakers", null, BigDecimal.TEN, false, null, 5);
+
+        verify(manager, times(1)).searchProducts(eq(expectedFilter), isNull(), eq(5));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getNextCursor()).isEqualTo("NEXT");
+        assertThat(response.getBody().getItems()).containsExactly(found);
+    }
+
+    @Test
+    void searchProducts_returnsNotFound_whenNothingMatches() {
+        when(manager.searchProducts(any(ProductSearchFilter.class), anyString(), eq(10))).thenReturn(new CursorPage<>(List.of(), null));
+
+        ResponseEntity<CursorPage<ProductDto>> response = controller.searchProducts(null, "nothing", null, null, null, "CURSOR", 10);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void updateProduct() {
         UUID productId = UUID.randomUUID();
@@ -197,7 +417,7 @@ class ProductControllerTest {
                 .description("Nike, Air Jordan model")
                 .build();
 
-        ResponseEntity<ProductDto> response = controller.updateProduct(productId.toString(), updateDto);
+        ResponseEntity<ProductDto> response = controller.updateProduct(productId.toString(), null, updateDto);
 
         verify(mapper, times(1)).toDto(eq(expected));
         verify(manager, times(1)).updateProduct(eq(productId.toString()), eq(updateDto));
@@ -229,7 +449,7 @@ class ProductControllerTest {
         expected.setDeleted(false);
         when(manager.findProduct(eq(productId.toString()))).thenReturn(Optional.of(expected));
 
-        ResponseEntity<ProductDto> response = controller.findProduct(productId.toString());
+        ResponseEntity<ProductDto> response = controller.findProduct(productId.toString(), null);
 
         verify(mapper, times(1)).toDto(eq(expected));
         verify(manager, times(1)).findProduct(eq(productId.toString()));
@@ -253,7 +473,7 @@ class ProductControllerTest {
     void findProduct_returnsNotFound() {
         when(manager.findProduct(anyString())).thenReturn(Optional.empty());
 
-        ResponseEntity<ProductDto> response = controller.findProduct("aaa");
+        ResponseEntity<ProductDto> response = controller.findProduct("aaa", null);
 
         verify(mapper, never()).toDto(any(Product.class));
         verify(manager, times(1)).findProduct(anyString());
@@ -261,6 +481,30 @@ class ProductControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void findProduct_returnsNotModified_withoutLoadingProduct() {
+        UUID productId = UUID.randomUUID();
+        when(manager.findProductVersion(eq(productId.toString())))
+                .thenReturn(Optional.of(entityVersion(7, Timestamp.from(Instant.now()))));
+        String etag = "\"7\"";
+
+        ResponseEntity<ProductDto> response = controller.findProduct(productId.toString(), "W/" + etag);
+
+        verify(manager, never()).findProduct(anyString());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+    }
+
+    @Test
+    void findProduct_returnsNotFound_ifConditionalAndNoProduct() {
+        when(manager.findProductVersion(anyString())).thenReturn(Optional.empty());
+
+        ResponseEntity<ProductDto> response = controller.findProduct(UUID.randomUUID().toString(), "*");
+
+        verify(manager, never()).findProduct(anyString());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void deleteProduct() {
         controller.deleteProduct("ID");
@@ -275,4 +519,22 @@ class ProductControllerTest {
         mapper = null;
         controller = null;
     }
-}
\ No newline at end of file
+
+    private static InputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static EntityVersion entityVersion(long version, Timestamp lastModified) {
+        return new EntityVersion() {
+            @Override
+            public long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Timestamp getLastModified() {
+                return lastModified;
+            }
+        };
+    }
+}
@@ -0,0 +1,162 @@
+package com.bukkaa.appsmart.controller;
+
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.cache.CacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBytesCacheFilterTest {
+
+    private static final String PRODUCT_ID = UUID.randomUUID().toString();
+    private static final String PRODUCT_PATH = "/api/v1/products/" + PRODUCT_ID;
+
+    private CaffeineCacheManager cacheManager;
+    private CacheProperties properties;
+    private ResponseBytesCacheFilter filter;
+    private ProductServlet servlet;
+
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(CacheConfig.CUSTOMER_RESPONSES, CacheConfig.PRODUCT_RESPONSES);
+        properties = new CacheProperties();
+        filter = new ResponseBytesCacheFilter(cacheManager, properties);
+        servlet = new ProductServlet();
+    }
+
+
+    @Test
+    void repeatedRequest_isServedFromCachedBytes() throws ServletException, IOException {
+        MockHttpServletResponse first = get(request(PRODUCT_PATH));
+        MockHttpServletResponse second = get(request(PRODUCT_PATH));
+
+        assertThat(servlet.calls).hasValue(1);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(second.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+        assertThat(second.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo("\"0\"");
+        assertThat(second.getContentLength()).isEqualTo(first.getContentAsByteArray().length);
+    }
+
+    @Test
+    void cachedBytes_areKeptPerAcceptHeader() throws ServletException, IOException {
+        get(request(PRODUCT_PATH));
+        MockHttpServletRequest cbor = request(PRODUCT_PATH);
+        cbor.addHeader(HttpHeaders.ACCEPT, DtoMediaTypes.CBOR);
+        get(cbor);
+
+        assertThat(servlet.calls).hasValue(2);
+        assertThat(get(cbor).getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(get(request(PRODUCT_PATH)).getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(servlet.calls).hasValue(2);
+    }
+
+    @Test
+    void cachedResponse_answersNotModified_toMatchingTag() throws ServletException, IOException {
+        get(request(PRODUCT_PATH));
+        MockHttpServletRequest conditional = request(PRODUCT_PATH);
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0\"");
+
+        MockHttpServletResponse response = get(conditional);
+
+        assertThat(servlet.calls).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"0\"");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    void cachedResponse_isGzipped_ifAcceptedAndLargeEnough() throws ServletException, IOException {
+        properties.getResponses().setGzipMinSize(DataSize.ofBytes(1));
+        MockHttpServletResponse plain = get(request(PRODUCT_PATH));
+        MockHttpServletRequest gzipRequest = request(PRODUCT_PATH);
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        MockHttpServletResponse gzipped = get(gzipRequest);
+
+        assertThat(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(plain.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(gzipped.getHeader(HttpHeaders.VARY)).isEqualTo("Accept, Accept-Encoding");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getContentAsByteArray());
+        }
+    }
+
+    @Test
+    void evictedEntity_isServedByController_again() throws ServletException, IOException {
+        get(request(PRODUCT_PATH));
+        cacheManager.getCache(CacheConfig.PRODUCT_RESPONSES).evict(UUID.fromString(PRODUCT_ID));
+        servlet.version = 1;
+
+        MockHttpServletResponse response = get(request(PRODUCT_PATH));
+
+        assertThat(servlet.calls).hasValue(2);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+    }
+
+    @Test
+    void failedAndNonSingleEntityResponses_arentCached() throws ServletException, IOException {
+        servlet.status = 404;
+        get(request(PRODUCT_PATH));
+        get(request(PRODUCT_PATH));
+
+        servlet.status = 200;
+        MockHttpServletRequest expanded = request("/api/v1/customers/" + PRODUCT_ID);
+        expanded.setQueryString("expand=products");
+        get(expanded);
+        get(expanded);
+
+        get(request("/api/v1/customers/count"));
+        get(request("/api/v1/customers/count"));
+
+        assertThat(servlet.calls).hasValue(6);
+    }
+
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+
+    private static class ProductServlet extends HttpServlet {
+        private final AtomicInteger calls = new AtomicInteger();
+        private int status = 200;
+        private long version;
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            calls.incrementAndGet();
+            response.setStatus(status);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setHeader(HttpHeaders.ETAG, EntityTags.of(version));
+            response.getOutputStream().write(("{\"id\":\"" + PRODUCT_ID + "\",\"title\":\"Product\"}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
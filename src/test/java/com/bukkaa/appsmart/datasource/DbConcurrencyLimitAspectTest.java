@@ -0,0 +1,170 @@
+package com.bukkaa.appsmart.datasource;
+
+import com.bukkaa.appsmart.dto.ChangeFeedPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.manager.ChangeFeedManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbConcurrencyLimitAspectTest {
+
+    @Test
+    void limit_defaultsToPoolSize() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "25");
+
+        assertThat(new DbConcurrencyLimitAspect(new DbConcurrencyProperties(), environment).availablePermits()).isEqualTo(25);
+        assertThat(new DbConcurrencyLimitAspect(new DbConcurrencyProperties(), new MockEnvironment()).availablePermits())
+                .isEqualTo(DbConcurrencyLimitAspect.DEFAULT_POOL_SIZE);
+    }
+
+    @Test
+    void limitConcurrency_whenLimitReached_failsAfterTimeout() throws Exception {
+        DbConcurrencyLimitAspect aspect = aspect(1, Duration.ofMillis(50));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChangeFeedManager manager = proxy(aspect, new StubManager(() -> {
+            entered.countDown();
+            release.await();
+        }));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> manager.getCustomerChanges(null, null, 1));
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> manager.getProductChanges(null, null, 1))
+                    .isInstanceOf(DbConcurrencyLimitExceededException.class)
+                    .hasMessage("Too many concurrent requests, try again later");
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(aspect.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void limitConcurrency_nestedCall_runsWithinOuterTurn() {
+        DbConcurrencyLimitAspect aspect = aspect(1, Duration.ofMillis(50));
+        StubManager target = new StubManager(() -> { });
+        ChangeFeedManager manager = proxy(aspect, target);
+        target.nested = manager;
+
+        manager.getCustomerChanges(null, null, 1);
+
+        assertThat(target.nestedCalls).isEqualTo(1);
+        assertThat(aspect.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void limitConcurrency_whenCallFails_releasesPermit() {
+        DbConcurrencyLimitAspect aspect = aspect(1, Duration.ofMillis(50));
+        ChangeFeedManager manager = proxy(aspect, new StubManager(() -> {
+            throw new IllegalArgumentException("Wrong!");
+        }));
+
+        assertThatThrownBy(() -> manager.getCustomerChanges(null, null, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(aspect.availablePermits()).isEqualTo(1);
+    }
+
+
+    @Test
+    void callInTurn_sharesLimitWithManagerCalls() throws Exception {
+        DbConcurrencyLimitAspect aspect = aspect(1, Duration.ofMillis(50));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChangeFeedManager manager = proxy(aspect, new StubManager(() -> {
+            entered.countDown();
+            release.await();
+        }));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> manager.getCustomerChanges(null, null, 1));
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> aspect.callInTurn(() -> null))
+                    .isInstanceOf(DbConcurrencyLimitExceededException.class);
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(aspect.callInTurn(aspect::availablePermits)).isZero();
+        assertThat(aspect.availablePermits()).isEqualTo(1);
+    }
+
+
+    private static DbConcurrencyLimitAspect aspect(int limit, Duration acquireTimeout) {
+        DbConcurrencyProperties properties = new DbConcurrencyProperties();
+        properties.setLimit(limit);
+        properties.setAcquireTimeout(acquireTimeout);
+        return new DbConcurrencyLimitAspect(properties, new MockEnvironment());
+    }
+
+    private static ChangeFeedManager proxy(DbConcurrencyLimitAspect aspect, ChangeFeedManager target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private static class StubManager implements ChangeFeedManager {
+        private final Work work;
+        private ChangeFeedManager nested;
+        private int nestedCalls;
+
+        StubManager(Work work) {
+            this.work = work;
+        }
+
+        @Override
+        public ChangeFeedPage<CustomerDto> getCustomerChanges(Instant since, String watermark, int size) {
+            run();
+            if (nested != null) {
+                nested.getProductChanges(since, watermark, size);
+            }
+            return new ChangeFeedPage<>(List.of(), watermark, false);
+        }
+
+        @Override
+        public ChangeFeedPage<ProductDto> getProductChanges(Instant since, String watermark, int size) {
+            if (nested != null) {
+                nestedCalls++;
+            } else {
+                run();
+            }
+            return new ChangeFeedPage<>(List.of(), watermark, false);
+        }
+
+        private void run() {
+            try {
+                work.run();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
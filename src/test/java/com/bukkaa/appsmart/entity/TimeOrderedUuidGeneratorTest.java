@@ -0,0 +1,39 @@
+package com.bukkaa.appsmart.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void nextUuid_isVersion7() {
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void nextUuid_carriesCurrentMillis() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertThat(uuid.getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void nextUuid_isMonotonic_withinSameMillisecond() {
+        List<UUID> generated = IntStream.range(0, 10_000)
+                .mapToObj(i -> TimeOrderedUuidGenerator.nextUuid())
+                .collect(Collectors.toList());
+
+        List<String> asText = generated.stream().map(UUID::toString).collect(Collectors.toList());
+        assertThat(asText).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -1,22 +1,46 @@
 package com.bukkaa.appsmart.integration;
 
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.dto.CacheStatsDto;
 import com.bukkaa.appsmart.dto.CustomerDto;
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
 import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.ProductManager;
+import com.bukkaa.appsmart.metrics.MetricNames;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
 
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
+@AutoConfigureMetrics
+@TestPropertySource(properties = "appsmart.customer-removal.chunk-size=2")
 class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManager> {
 
+    @Autowired
+    private ProductManager productManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         super.baseSetUp();
@@ -37,7 +61,7 @@ class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManag
                                                     dto,
                                                     CustomerDto.class);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
@@ -61,7 +85,7 @@ class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManag
                                                     prepareCustomersUrl(persistedCustomer.getId().toString()),
                                                     CustomerDto.class);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
@@ -96,8 +120,8 @@ class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManag
                                         new HttpEntity<>(update, headers),
                                         CustomerDto.class);
 
-        verify(tokenService, times(1)).validateToken(anyString());
-        verify(tokenService, times(1)).extractUsername(anyString());
+        verify(tokenService, times(1)).parseClaims(anyString());
+        verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -111,6 +135,34 @@ class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManag
         assertThat(updatedCustomer.isDeleted()).isTrue();
     }
 
+    @Test
+    void updateCustomer_ifMatch_rejectsStaleVersion() {
+        Customer existed = new Customer();
+        existed.setTitle("BRAND NEW CUSTOMER");
+        existed = manager.createCustomer(existed);
+        URI customerUrl = URI.create(prepareCustomersUrl(existed.getId().toString()));
+
+        String etag = restTemplate.getForEntity(customerUrl, CustomerDto.class).getHeaders().getETag();
+        assertThat(etag).isEqualTo("\"0\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, getTokenUnwrapped("update"));
+        headers.setIfMatch(etag);
+        HttpEntity<UpdateCustomerDto> update = new HttpEntity<>(UpdateCustomerDto.builder().title("FIRST").build(), headers);
+
+        ResponseEntity<CustomerDto> first = restTemplate.exchange(customerUrl, HttpMethod.PUT, update, CustomerDto.class);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"1\"");
+        assertThat(first.getBody().getTitle()).isEqualTo("FIRST");
+
+        ResponseEntity<String> second = restTemplate.exchange(customerUrl, HttpMethod.PUT, update, String.class);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(manager.findCustomer(existed.getId().toString())).hasValueSatisfying(customer -> {
+            assertThat(customer.getTitle()).isEqualTo("FIRST");
+            assertThat(customer.getVersion()).isEqualTo(1);
+        });
+    }
+
     @SneakyThrows
     @Test
     void deleteCustomer_requiresToken() {
@@ -128,14 +180,178 @@ class CustomersIntegrationTest extends SecurityIntegrationBaseTest<CustomerManag
                                                 new HttpEntity<>(headers),
                                                 String.class);
 
-        verify(tokenService, times(1)).validateToken(anyString());
-        verify(tokenService, times(1)).extractUsername(anyString());
+        verify(tokenService, times(1)).parseClaims(anyString());
+        verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNull();
     }
 
+    @Test
+    void deleteCustomer_async_removesProductsInChunks_andReportsProgress() throws InterruptedException {
+        Customer existed = new Customer();
+        existed.setTitle("LARGE CUSTOMER");
+        existed.setDeleted(false);
+        existed = manager.createCustomer(existed);
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product();
+            product.setTitle("Product #" + i);
+            product.setPrice(BigDecimal.ONE);
+            productManager.createProductForCustomer(existed.getId().toString(), product);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, getTokenUnwrapped("delete"));
+        ResponseEntity<CustomerRemovalDto> started = restTemplate.exchange(
+                                                        URI.create(prepareCustomersUrl(existed.getId().toString()) + "?async=true"),
+                                                        HttpMethod.DELETE,
+                                                        new HttpEntity<>(headers),
+                                                        CustomerRemovalDto.class);
+
+        assertThat(started.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(started.getBody().getTotalProducts()).isEqualTo(5);
+        URI progressUrl = URI.create("http://localhost:" + port).resolve(started.getHeaders().getLocation());
+
+        CustomerRemovalDto removal = started.getBody();
+        for (int i = 0; i < 100 && (removal.getStatus() == CustomerRemovalDto.Status.QUEUED
+                                        || removal.getStatus() == CustomerRemovalDto.Status.RUNNING); i++) {
+            Thread.sleep(50);
+            removal = restTemplate.getForObject(progressUrl, CustomerRemovalDto.class);
+        }
+
+        assertThat(removal.getStatus()).isEqualTo(CustomerRemovalDto.Status.DONE);
+        assertThat(removal.getRemovedProducts()).isEqualTo(5);
+        assertThat(removal.getFinishedAt()).isNotNull();
+        assertThat(manager.findCustomer(existed.getId().toString())).isEmpty();
+        assertThat(productManager.countCustomerProducts(existed.getId().toString())).isZero();
+    }
+
+
+    @Test
+    void getCustomer_isCachedUntilUpdated() {
+        Customer existed = new Customer();
+        existed.setTitle("CACHED CUSTOMER");
+        existed.setDeleted(false);
+        existed = manager.createCustomer(existed);
+        String customerUrl = prepareCustomersUrl(existed.getId().toString());
+
+        restTemplate.getForEntity(customerUrl, CustomerDto.class);
+        restTemplate.getForEntity(customerUrl, CustomerDto.class);
+
+        // the repeated request is answered with the encoded response, without getting to the customer
+        assertThat(cacheStats(CacheConfig.CUSTOMER_RESPONSES).getHitCount()).isEqualTo(1);
+        assertThat(cacheStats(CacheConfig.CUSTOMERS).getHitCount()).isZero();
+        assertThat(cacheStats(CacheConfig.CUSTOMERS).getMissCount()).isEqualTo(1);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, getTokenUnwrapped("update"));
+        restTemplate.exchange(URI.create(customerUrl),
+                              HttpMethod.PUT,
+                              new HttpEntity<>(UpdateCustomerDto.builder().title("UPDATED CUSTOMER").build(), headers),
+                              CustomerDto.class);
+
+        ResponseEntity<CustomerDto> response = restTemplate.getForEntity(customerUrl, CustomerDto.class);
+
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getTitle()).isEqualTo("UPDATED CUSTOMER");
+        assertThat(cacheStats(CacheConfig.CUSTOMER_RESPONSES).getMissCount()).isEqualTo(2);
+        assertThat(cacheStats(CacheConfig.CUSTOMERS).getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    @SneakyThrows
+    void exportCustomers_streamsNdjson_andDoesntRequireToken() {
+        Customer exported = new Customer();
+        exported.setTitle("EXPORTED CUSTOMER");
+        exported.setDeleted(false);
+        exported = manager.createCustomer(exported);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(testedApiUrl + "/export", String.class);
+
+        verify(tokenService, never()).parseClaims(anyString());
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getBody()).isNotNull();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<CustomerDto> customers = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            customers.add(objectMapper.readValue(line, CustomerDto.class));
+        }
+        String exportedId = exported.getId().toString();
+        assertThat(customers).anySatisfy(customer -> {
+            assertThat(customer.getId()).isEqualTo(exportedId);
+            assertThat(customer.getProducts()).isEmpty();
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    void exportCustomers_countsStatementsOfStreamingThread() {
+        Customer exported = new Customer();
+        exported.setTitle("COUNTED CUSTOMER");
+        exported = manager.createCustomer(exported);
+        long exportsBefore = exportStatements().count();
+        double statementsBefore = exportStatements().totalAmount();
+
+        ResponseEntity<String> response = restTemplate.getForEntity(testedApiUrl + "/export", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        // recorded once the async processing completes, right after the response is sent
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exportStatements().count() == exportsBefore && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(exportStatements().count()).isEqualTo(exportsBefore + 1);
+        assertThat(exportStatements().totalAmount()).isGreaterThan(statementsBefore);
+    }
+
+    @Test
+    void metrics_areScrapedInPrometheusFormat() {
+        Customer existed = new Customer();
+        existed.setTitle("MEASURED CUSTOMER");
+        existed.setDeleted(false);
+        existed = manager.createCustomer(existed);
+        String customerUrl = prepareCustomersUrl(existed.getId().toString());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, getTokenUnwrapped("update"));
+        restTemplate.exchange(URI.create(customerUrl),
+                              HttpMethod.PUT,
+                              new HttpEntity<>(UpdateCustomerDto.builder().title("UPDATED CUSTOMER").build(), headers),
+                              CustomerDto.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("appsmart_manager_seconds_count{class=\"CustomerManagerImpl\",exception=\"none\",method=\"updateCustomer\",}")
+                .contains("appsmart_jwt_validation_seconds_count{outcome=\"valid\",}")
+                .contains("appsmart_hibernate_statements_count{method=\"PUT\",uri=\"/api/v1/customers/{customerId}\",}")
+                .contains("hikaricp_connections_pending");
+    }
+
+
+    private DistributionSummary exportStatements() {
+        return DistributionSummary.builder(MetricNames.HIBERNATE_STATEMENTS)
+                .baseUnit("statements")
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/customers/export")
+                .register(meterRegistry);
+    }
+
+    private CacheStatsDto cacheStats(String cacheName) {
+        CacheStatsDto[] stats = restTemplate.getForObject(baseUrl + "/caches", CacheStatsDto[].class);
+        return Arrays.stream(stats)
+                .filter(cacheStats -> cacheName.equals(cacheStats.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
 
     private String prepareCustomersUrl(String customerId) {
         return testedApiUrl + "/" + customerId;
@@ -0,0 +1,109 @@
+package com.bukkaa.appsmart.integration;
+
+import com.bukkaa.appsmart.manager.CustomerManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests go through the whole MVC stack, so that a connection kept by the request after its manager calls
+ * (as open-session-in-view would do) shows up as more connections in use than the limit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(DbConcurrencyLimitIntegrationTest.HoldingController.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:db-limit-test-db;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=test",
+        "spring.datasource.password=test",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "appsmart.datasource.concurrency.limit=" + DbConcurrencyLimitIntegrationTest.LIMIT})
+class DbConcurrencyLimitIntegrationTest {
+    static final int LIMIT = 2;
+    private static final int REQUESTS = 6;
+
+    private static final AtomicInteger maxActiveConnections = new AtomicInteger();
+    private static CountDownLatch allServed;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private ExecutorService executor;
+
+
+    @BeforeEach
+    void setUp() {
+        maxActiveConnections.set(0);
+        allServed = new CountDownLatch(REQUESTS);
+        executor = Executors.newFixedThreadPool(REQUESTS);
+    }
+
+
+    @Test
+    void requests_holdNoMoreConnectionsThanLimit_afterManagerCalls() throws Exception {
+        List<Future<Integer>> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(executor.submit(() -> mockMvc.perform(get("/api/v1/test/customers/{customerId}/version", UUID.randomUUID()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getStatus()));
+        }
+        for (Future<Integer> request : requests) {
+            request.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(maxActiveConnections.get()).isLessThanOrEqualTo(LIMIT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * Serves the version of a customer, then waits until all the requests have got theirs.
+     */
+    @RestController
+    static class HoldingController {
+        @Autowired
+        private CustomerManager manager;
+        @Autowired
+        private HikariDataSource dataSource;
+
+        @GetMapping("/api/v1/test/customers/{customerId}/version")
+        public boolean findCustomerVersion(@PathVariable String customerId) throws InterruptedException {
+            boolean found = manager.findCustomerVersion(customerId).isPresent();
+            allServed.countDown();
+            allServed.await(5, TimeUnit.SECONDS);
+            maxActiveConnections.accumulateAndGet(dataSource.getHikariPoolMXBean().getActiveConnections(), Math::max);
+            return found;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.bukkaa.appsmart.integration;
+
+import com.bukkaa.appsmart.cache.CacheConfig;
+import com.bukkaa.appsmart.cache.CacheStatistics;
+import com.bukkaa.appsmart.dto.CacheStatsDto;
+import com.bukkaa.appsmart.dto.UpdateCustomerDto;
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.ProductManager;
+import com.bukkaa.appsmart.repository.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:entity-cache-test-db;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=test",
+        "spring.datasource.password=test",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"})
+class EntityCacheIntegrationTest {
+
+    @Autowired
+    private CustomerManager customerManager;
+    @Autowired
+    private ProductManager productManager;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private CacheStatistics cacheStatistics;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate transaction;
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+
+    @Test
+    void findById_repeatedly_doesntHitDatabase() {
+        UUID id = createCustomer().getId();
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<Customer> customer = transaction.execute(status -> customerRepository.findById(id));
+            assertThat(customer).isPresent();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(Customer.CACHE_REGION).getHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void createProductForCustomer_looksCustomerUpInEntityCache() {
+        String customerId = createCustomer().getId().toString();
+        statistics.clear();
+
+        for (int i = 0; i < 2; i++) {
+            // makes the customer lookup miss the manager-level cache
+            cacheManager.getCache(CacheConfig.CUSTOMERS).clear();
+            productManager.createProductForCustomer(customerId, product("Product " + i));
+        }
+
+        assertThat(statistics.getEntityStatistics(Customer.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(Customer.CACHE_REGION).getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void productsCollection_isCachedAndEvictedOnNewProduct() {
+        String customerId = createCustomer().getId().toString();
+        productManager.createProductForCustomer(customerId, product("First"));
+
+        assertThat(countProducts(customerId)).isEqualTo(1);
+        statistics.clear();
+        assertThat(countProducts(customerId)).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(Customer.PRODUCTS_CACHE_REGION).getHitCount()).isEqualTo(1);
+
+        productManager.createProductForCustomer(customerId, product("Second"));
+
+        assertThat(countProducts(customerId)).isEqualTo(2);
+    }
+
+    @Test
+    void repriceCustomerProducts_evictsOnlyThatCustomersProducts() {
+        String repricedCustomerId = createCustomer().getId().toString();
+        String otherCustomerId = createCustomer().getId().toString();
+        UUID repricedId = productManager.createProductForCustomer(repricedCustomerId, product("Repriced")).getId();
+        UUID otherId = productManager.createProductForCustomer(otherCustomerId, product("Other")).getId();
+        productManager.findProduct(repricedId.toString());
+        productManager.findProduct(otherId.toString());
+
+        productManager.repriceCustomerProducts(repricedCustomerId, new BigDecimal("2"));
+
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        assertThat(products.get(repricedId)).isNull();
+        assertThat(products.get(otherId)).isNotNull();
+        assertThat(productManager.findProduct(repricedId.toString()).orElseThrow().getPrice())
+                .isEqualByComparingTo("20");
+    }
+
+    @Test
+    void updateCustomerIfVersion_returnsNewStateDespiteCachedOne() {
+        UUID id = createCustomer().getId();
+        transaction.execute(status -> customerRepository.findById(id));
+
+        Customer updated = customerManager.updateCustomer(id.toString(), 0, UpdateCustomerDto.builder().title("Updated").build());
+
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getTitle()).isEqualTo("Updated");
+    }
+
+    @Test
+    void cacheStatistics_includeEntityRegions() {
+        UUID id = createCustomer().getId();
+        transaction.execute(status -> customerRepository.findById(id));
+
+        CacheStatsDto customers = cacheStatistics.collect().stream()
+                .filter(stats -> (CacheStatistics.ENTITY_REGION_PREFIX + Customer.CACHE_REGION).equals(stats.getName()))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(customers.getSize()).isPositive();
+        assertThat(customers.getHitCount()).isPositive();
+        assertThat(customers.getEvictionCount()).isEqualTo(-1);
+    }
+
+
+    private Customer createCustomer() {
+        Customer customer = new Customer();
+        customer.setTitle("Cached");
+        return customerManager.createCustomer(customer);
+    }
+
+    private int countProducts(String customerId) {
+        return transaction.execute(status ->
+                customerRepository.findById(UUID.fromString(customerId)).orElseThrow().getProducts().size());
+    }
+
+    private static Product product(String title) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(BigDecimal.TEN);
+        return product;
+    }
+}
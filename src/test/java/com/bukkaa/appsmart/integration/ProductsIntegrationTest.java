@@ -1,20 +1,31 @@
 package com.bukkaa.appsmart.integration;
 
+import com.bukkaa.appsmart.controller.DtoMediaTypes;
+import com.bukkaa.appsmart.dto.BatchGetEntry;
 import com.bukkaa.appsmart.dto.ProductDto;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.entity.Product;
 import com.bukkaa.appsmart.manager.CustomerManager;
 import com.bukkaa.appsmart.manager.ProductManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,6 +38,8 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
 
     @Autowired
     private CustomerManager customerManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
 
     @BeforeEach
@@ -52,7 +65,7 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
 
         ResponseEntity<ProductDto> response = restTemplate.postForEntity(prepareCustomerProductsUrl(), dto, ProductDto.class);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
@@ -67,6 +80,92 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
         assertThat(actual.getPrice()).isEqualTo(dto.getPrice());
     }
 
+    @Test
+    void createProductsBatch_acceptsNdjson_andDoesntRequireToken() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        String body = IntStream.range(0, 5)
+                .mapToObj(i -> "{\"title\": \"Product #" + i + "\", \"price\": 10.00, \"isDeleted\": false}")
+                .collect(Collectors.joining("\n"));
+
+        ResponseEntity<Long> response = restTemplate.postForEntity(prepareCustomerProductsUrl() + ":batch",
+                                                                   new HttpEntity<>(body, headers), Long.class);
+
+        verify(tokenService, never()).parseClaims(anyString());
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(5L);
+        assertThat(manager.countCustomerProducts(CUSTOMER.getId().toString())).isEqualTo(5L);
+    }
+
+    @Test
+    void createProductsBatch_acceptsSmileSequence() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(DtoMediaTypes.SMILE));
+        ObjectMapper smileMapper = new SmileMapper();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            body.write(smileMapper.writeValueAsBytes(ProductDto.builder().title("Product #" + i).price(BigDecimal.TEN).build()));
+        }
+
+        ResponseEntity<Long> response = restTemplate.postForEntity(prepareCustomerProductsUrl() + ":batch",
+                                                                   new HttpEntity<>(body.toByteArray(), headers), Long.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(3L);
+        assertThat(manager.countCustomerProducts(CUSTOMER.getId().toString())).isEqualTo(3L);
+    }
+
+    @Test
+    void findProduct_negotiatesCbor_andDefaultsToJson() throws IOException {
+        Product expected = new Product();
+        expected.setTitle("Product");
+        expected.setPrice(BigDecimal.valueOf(111.11));
+        expected = manager.createProductForCustomer(CUSTOMER.getId().toString(), expected);
+        prepareProductsUrl(expected.getId().toString());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        ResponseEntity<byte[]> cbor = restTemplate.exchange(testedApiUrl, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(cbor.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        ProductDto actual = new CBORMapper().readValue(cbor.getBody(), ProductDto.class);
+        assertThat(actual.getId()).isEqualTo(expected.getId().toString());
+        assertThat(actual.getPrice()).isEqualTo(expected.getPrice());
+
+        headers.setAccept(List.of(MediaType.ALL));
+        ResponseEntity<byte[]> json = restTemplate.exchange(testedApiUrl, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(json.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(json.getBody().length).isGreaterThan(cbor.getBody().length);
+    }
+
+    @Test
+    void findProductsBatch_keepsRequestOrder_andDoesntRequireToken() {
+        Product product = new Product();
+        product.setTitle("Batch product");
+        product.setPrice(BigDecimal.TEN);
+        product = manager.createProductForCustomer(CUSTOMER.getId().toString(), product);
+        String missingId = UUID.randomUUID().toString();
+
+        ResponseEntity<List<BatchGetEntry<ProductDto>>> response = restTemplate.exchange(
+                baseUrl + "/products:batchGet",
+                HttpMethod.POST,
+                new HttpEntity<>(List.of(missingId, product.getId().toString())),
+                new ParameterizedTypeReference<>() {});
+
+        verify(tokenService, never()).parseClaims(anyString());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2);
+        assertThat(response.getBody().get(0).getId()).isEqualTo(missingId);
+        assertThat(response.getBody().get(0).isFound()).isFalse();
+        assertThat(response.getBody().get(1).getId()).isEqualTo(product.getId().toString());
+        assertThat(response.getBody().get(1).getItem().getTitle()).isEqualTo("Batch product");
+    }
+
     @Test
     void findAllCustomerProducts_doesntRequireToken() {
         int page = 0;
@@ -88,7 +187,7 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
 
         ResponseEntity<List> response = restTemplate.getForEntity(testedApiUrl, List.class);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
@@ -113,7 +212,7 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
 
         ResponseEntity<ProductDto> response = restTemplate.getForEntity(testedApiUrl, ProductDto.class);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
@@ -152,8 +251,8 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
                                                     new HttpEntity<>(updateDto, headers),
                                                     ProductDto.class);
 
-        verify(tokenService, times(1)).validateToken(anyString());
-        verify(tokenService, times(1)).extractUsername(anyString());
+        verify(tokenService, times(1)).parseClaims(anyString());
+        verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
         assertThat(response.getBody()).isNotNull();
@@ -188,8 +287,8 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
                                                 new HttpEntity<>(headers),
                                                 String.class);
 
-        verify(tokenService, times(1)).validateToken(anyString());
-        verify(tokenService, times(1)).extractUsername(anyString());
+        verify(tokenService, times(1)).parseClaims(anyString());
+        verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
         assertThat(response.getBody()).isNull();
@@ -197,6 +296,79 @@ public class ProductsIntegrationTest<T> extends SecurityIntegrationBaseTest<Prod
     }
 
 
+    @Test
+    void repriceCustomerProducts_requiresToken_andRefreshesCachedProduct() {
+        Product product = new Product();
+        product.setTitle("Product");
+        product.setPrice(BigDecimal.valueOf(100));
+        product = manager.createProductForCustomer(CUSTOMER.getId().toString(), product);
+        // puts the product into the cache
+        manager.findProduct(product.getId().toString());
+
+        String url = prepareCustomerProductsUrl() + ":reprice?factor=1.25";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, getTokenUnwrapped("update"));
+        ResponseEntity<Integer> response = restTemplate.exchange(URI.create(url), HttpMethod.PUT, new HttpEntity<>(headers), Integer.class);
+
+        verify(tokenService, times(1)).parseClaims(anyString());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(1);
+
+        Product repriced = manager.findProduct(product.getId().toString()).orElseThrow();
+        assertThat(repriced.getPrice()).isEqualByComparingTo("125.00");
+        assertThat(repriced.getModifiedAt()).isNotNull();
+    }
+
+    @Test
+    void findProduct_answersNotModified_untilProductChanges() {
+        Product product = new Product();
+        product.setTitle("Product");
+        product.setPrice(BigDecimal.valueOf(100));
+        product = manager.createProductForCustomer(CUSTOMER.getId().toString(), product);
+        URI url = URI.create(prepareProductsUrl(product.getId().toString()));
+
+        ResponseEntity<ProductDto> first = restTemplate.getForEntity(url, ProductDto.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<ProductDto> notModified = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), ProductDto.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(etag);
+
+        manager.updateProduct(product.getId().toString(), UpdateProductDto.builder().price(BigDecimal.ONE).build());
+
+        ResponseEntity<ProductDto> modified = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), ProductDto.class);
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(modified.getBody().getPrice()).isEqualByComparingTo(BigDecimal.ONE);
+    }
+
+    @Test
+    void findProduct_servesCachedBytes_untilManagerChangesProduct() {
+        Product product = new Product();
+        product.setTitle("Product");
+        product.setPrice(BigDecimal.valueOf(100));
+        product = manager.createProductForCustomer(CUSTOMER.getId().toString(), product);
+        URI url = URI.create(prepareProductsUrl(product.getId().toString()));
+        ResponseEntity<byte[]> first = restTemplate.getForEntity(url, byte[].class);
+
+        // bypasses the managers, so nothing gets invalidated
+        jdbcTemplate.update("update products set title = 'Changed' where id = ?", product.getId());
+        ResponseEntity<byte[]> cached = restTemplate.getForEntity(url, byte[].class);
+
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(cached.getBody()).isEqualTo(first.getBody());
+        assertThat(cached.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+
+        manager.updateProduct(product.getId().toString(), UpdateProductDto.builder().price(BigDecimal.ONE).build());
+        ResponseEntity<ProductDto> updated = restTemplate.getForEntity(url, ProductDto.class);
+
+        assertThat(updated.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+        assertThat(updated.getBody().getPrice()).isEqualByComparingTo(BigDecimal.ONE);
+    }
+
 
     private String prepareProductsUrl(String productId) {
         return testedApiUrl = baseUrl + "/products/" + productId;
@@ -0,0 +1,57 @@
+package com.bukkaa.appsmart.integration;
+
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.manager.CustomerManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The replica points to the very same in-memory database, so that the schema created through the primary is there.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-test-db;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=test",
+        "spring.datasource.password=test",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "appsmart.datasource.replica.url=jdbc:h2:mem:replica-test-db;DB_CLOSE_DELAY=-1",
+        "appsmart.datasource.replica.username=test",
+        "appsmart.datasource.replica.password=test"})
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+    @Autowired
+    private CustomerManager manager;
+
+
+    @Test
+    void readOnlyManagerCalls_useReplicaPool() {
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+
+        Customer customer = new Customer();
+        customer.setTitle("Replicated");
+        customer = manager.createCustomer(customer);
+        // the replica pool starts with its first connection
+        assertThat(replicaDataSource.isRunning()).isFalse();
+
+        assertThat(manager.findCustomer(customer.getId().toString())).isPresent();
+        assertThat(manager.countCustomers()).isEqualTo(1);
+
+        assertThat(replicaDataSource.isRunning()).isTrue();
+    }
+}
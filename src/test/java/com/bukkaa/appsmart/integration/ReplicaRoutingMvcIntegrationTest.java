@@ -0,0 +1,139 @@
+package com.bukkaa.appsmart.integration;
+
+import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.manager.CustomerManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unlike {@link ReplicaRoutingIntegrationTest}, the replica is a database of its own with the schema of the primary
+ * but no rows, so that the requests show where their reads and writes went.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(ReplicaRoutingMvcIntegrationTest.RoutingController.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary-db;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=test",
+        "spring.datasource.password=test",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "appsmart.datasource.replica.url=jdbc:h2:mem:routing-replica-db;DB_CLOSE_DELAY=-1",
+        "appsmart.datasource.replica.username=test",
+        "appsmart.datasource.replica.password=test"})
+class ReplicaRoutingMvcIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        List<String> schema = primary.queryForList("script nodata", String.class);
+        replica.execute("drop all objects");
+        schema.forEach(replica::execute);
+    }
+
+
+    @Test
+    void createdCustomer_isWrittenToPrimary() throws Exception {
+        String id = createCustomer("/api/v1/customers");
+
+        assertThat(countCustomers(primary, id)).isOne();
+        assertThat(countCustomers(replica, id)).isZero();
+    }
+
+    @Test
+    void writeAfterRead_inSameRequest_goesToPrimary() throws Exception {
+        String id = createCustomer("/api/v1/test/routing/customers:readAndCreate");
+
+        assertThat(countCustomers(primary, id)).isOne();
+        assertThat(countCustomers(replica, id)).isZero();
+    }
+
+    @Test
+    void readAfterWrite_inSameRequest_goesToReplica() throws Exception {
+        mockMvc.perform(post("/api/v1/test/routing/customers:createAndRead"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("false"));
+    }
+
+
+    private String createCustomer(String path) throws Exception {
+        String response = mockMvc.perform(post(path)
+                                                  .contentType(MediaType.APPLICATION_JSON)
+                                                  .content("{\"title\":\"Routed customer\",\"isDeleted\":false}"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.id").exists())
+                .andReturn().getResponse().getContentAsString();
+        return response.replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+    }
+
+    private static int countCustomers(JdbcTemplate jdbcTemplate, String id) {
+        return jdbcTemplate.queryForObject("select count(*) from customers where id = ?", Integer.class, UUID.fromString(id));
+    }
+
+
+    /**
+     * Mixes read-only and writing manager calls within a single request.
+     */
+    @RestController
+    static class RoutingController {
+        @Autowired
+        private CustomerManager manager;
+
+        @PostMapping("/api/v1/test/routing/customers:readAndCreate")
+        public Customer readAndCreate() {
+            manager.findCustomerVersion(UUID.randomUUID().toString());
+            return manager.createCustomer(newCustomer());
+        }
+
+        /**
+         * @return whether the read sees the customer just created, it doesn't if it reads from the replica
+         */
+        @PostMapping("/api/v1/test/routing/customers:createAndRead")
+        public boolean createAndRead() {
+            Customer customer = manager.createCustomer(newCustomer());
+            return manager.findCustomerVersion(customer.getId().toString()).isPresent();
+        }
+
+        private static Customer newCustomer() {
+            Customer customer = new Customer();
+            customer.setTitle("Routed customer");
+            return customer;
+        }
+    }
+}
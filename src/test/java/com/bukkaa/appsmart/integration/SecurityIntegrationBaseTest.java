@@ -69,7 +69,7 @@ public abstract class SecurityIntegrationBaseTest<T> {
 
         ResponseEntity<String> response = executeGenerateTokenRequest(username);
 
-        verify(tokenService, never()).validateToken(anyString());
+        verify(tokenService, never()).parseClaims(anyString());
         verify(tokenService, never()).extractUsername(anyString());
 
         assertThat(response).isNotNull();
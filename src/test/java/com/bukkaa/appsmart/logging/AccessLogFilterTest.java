@@ -0,0 +1,73 @@
+package com.bukkaa.appsmart.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogFilterTest {
+
+    private AccessLogProperties properties;
+    private AccessLogFilter filter;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AccessLogProperties();
+        filter = new AccessLogFilter(properties);
+        appender = new ListAppender<>();
+        appender.start();
+        ((Logger) LoggerFactory.getLogger("access")).addAppender(appender);
+    }
+
+    @Test
+    void logsIdsAndStatus_withoutPayload() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products/42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .startsWith("method=GET path=/api/v1/products/42 status=200 tookMs=");
+    }
+
+    @Test
+    void skipsSuccessfulRequests_butLogsFailedOnes_whenSampledOut() throws ServletException, IOException {
+        properties.setSampleRate(0.0);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/42"), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockHttpServletResponse notFound = new MockHttpServletResponse();
+        notFound.setStatus(404);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/43"), notFound, new MockFilterChain());
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("path=/api/v1/products/43 status=404");
+    }
+
+    @Test
+    void logsNothing_ifDisabled() throws ServletException, IOException {
+        properties.setEnabled(false);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/42"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger("access")).detachAppender(appender);
+    }
+}
@@ -1,21 +1,27 @@
 package com.bukkaa.appsmart.manager.impl;
 
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Tombstone;
 import com.bukkaa.appsmart.manager.CustomerManager;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
 import com.bukkaa.appsmart.repository.CustomerRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -24,12 +30,16 @@ class CustomerManagerTest {
     private CustomerRepository repository;
     private CustomerManager manager;
     private CustomerMapper mapper;
+    private EntityCacheEvictor cacheEvictor;
+    private TombstoneRepository tombstoneRepository;
 
     @BeforeEach
     void setUp() {
         repository = mock(CustomerRepository.class);
         mapper = spy(CustomerMapper.class);
-        manager = new CustomerManagerImpl(repository, mapper);
+        cacheEvictor = mock(EntityCacheEvictor.class);
+        tombstoneRepository = mock(TombstoneRepository.class);
+        manager = new CustomerManagerImpl(repository, mapper, cacheEvictor, tombstoneRepository);
     }
 
     @Test
@@ -93,15 +103,75 @@ class CustomerManagerTest {
         verify(repository, times(1)).findById(eq(customerId));
         verify(mapper, never()).merge(any(Customer.class), any(UpdateCustomerDto.class));
         verify(repository, never()).save(any(Customer.class));
+        verify(cacheEvictor, never()).evictCustomer(any());
         assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
         assertThat(expected.getMessage()).isEqualTo(format("Customer with id = '%s' not found!", customerId));
     }
 
+    @Test
+    void removeCustomer_deletesProductsAndCustomerInBulk_andEvictsThem() {
+        UUID customerId = UUID.randomUUID();
+        List<UUID> productIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(repository.findProductIdsByCustomerId(eq(customerId), any())).thenReturn(productIds);
+        when(repository.deleteCustomerById(eq(customerId))).thenReturn(1);
+
+        manager.removeCustomer(customerId.toString());
+
+        verify(repository, times(1)).deleteProductsByCustomerId(eq(customerId));
+        verify(repository, times(1)).deleteCustomerById(eq(customerId));
+        verify(repository, never()).deleteById(any());
+        verify(cacheEvictor, times(1)).evictCustomer(eq(customerId));
+        productIds.forEach(productId -> verify(cacheEvictor, times(1)).evictProduct(eq(productId)));
+        verifyNoMoreInteractions(cacheEvictor);
+    }
+
+    @Test
+    void removeCustomer_recordsTombstonesOfCustomerAndItsProducts() {
+        UUID customerId = UUID.randomUUID();
+        when(repository.deleteCustomerById(eq(customerId))).thenReturn(1);
+
+        manager.removeCustomer(customerId.toString());
+
+        verify(tombstoneRepository, times(1))
+                .insertProductTombstonesByCustomerId(eq(customerId), eq(Tombstone.EntityType.PRODUCT), notNull());
+        ArgumentCaptor<Tombstone> captor = ArgumentCaptor.forClass(Tombstone.class);
+        verify(tombstoneRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(Tombstone::getEntityId, Tombstone::getEntityType)
+                .containsExactly(customerId, Tombstone.EntityType.CUSTOMER);
+    }
+
+    @Test
+    void removeCustomer_throwsIllegalArgumentEx_ifNotFound() {
+        UUID customerId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> manager.removeCustomer(customerId.toString()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(format("Customer with id = '%s' not found!", customerId));
+        verify(cacheEvictor, never()).evictCustomer(any());
+    }
+
+    @Test
+    void markCustomersDeleted_runsOneUpdate_andEvictsEachCustomer() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(repository.markDeletedByIdIn(eq(List.of(first, second)), any())).thenReturn(1);
+
+        int updated = manager.markCustomersDeleted(List.of(first.toString(), second.toString()));
+
+        assertThat(updated).isEqualTo(1);
+        verify(repository, times(1)).markDeletedByIdIn(eq(List.of(first, second)), notNull());
+        verify(cacheEvictor, times(1)).evictCustomer(eq(first));
+        verify(cacheEvictor, times(1)).evictCustomer(eq(second));
+    }
+
     @AfterEach
     void tearDown() {
         clearAllCaches();
         repository = null;
         manager = null;
         mapper = null;
+        cacheEvictor = null;
+        tombstoneRepository = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.bukkaa.appsmart.manager.impl;
+
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.datasource.DbConcurrencyLimitAspect;
+import com.bukkaa.appsmart.datasource.DbConcurrencyLimitExceededException;
+import com.bukkaa.appsmart.datasource.DbConcurrencyProperties;
+import com.bukkaa.appsmart.dto.CustomerRemovalDto;
+import com.bukkaa.appsmart.repository.CustomerRepository;
+import com.bukkaa.appsmart.repository.ProductRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CustomerRemovalManagerTest {
+
+    private final UUID blockingCustomerId = UUID.randomUUID();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private CustomerRepository repository;
+    private DbConcurrencyLimitAspect dbConcurrencyLimit;
+    private CustomerRemovalManagerImpl manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(CustomerRepository.class);
+        when(repository.existsById(any())).thenReturn(true);
+        when(repository.deleteCustomerById(any())).thenReturn(1);
+        when(repository.findProductIdsByCustomerId(any(), any(Pageable.class))).thenReturn(List.of());
+        when(repository.findProductIdsByCustomerId(eq(blockingCustomerId), any(Pageable.class))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return List.of();
+        });
+
+        DbConcurrencyProperties dbConcurrencyProperties = new DbConcurrencyProperties();
+        dbConcurrencyProperties.setLimit(1);
+        dbConcurrencyProperties.setAcquireTimeout(Duration.ofMillis(50));
+        dbConcurrencyLimit = new DbConcurrencyLimitAspect(dbConcurrencyProperties, new MockEnvironment());
+        ObjectProvider<DbConcurrencyLimitAspect> dbConcurrencyLimitProvider = mock(ObjectProvider.class);
+        when(dbConcurrencyLimitProvider.getIfAvailable()).thenReturn(dbConcurrencyLimit);
+
+        CustomerRemovalProperties properties = new CustomerRemovalProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        manager = new CustomerRemovalManagerImpl(repository, mock(ProductRepository.class), mock(TombstoneRepository.class),
+                                                 mock(EntityCacheEvictor.class), mock(PlatformTransactionManager.class),
+                                                 dbConcurrencyLimitProvider, properties);
+    }
+
+
+    @Test
+    void startCustomerRemoval_ofQueuedCustomer_returnsQueuedRemoval() throws InterruptedException {
+        manager.startCustomerRemoval(blockingCustomerId.toString());
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        String customerId = UUID.randomUUID().toString();
+
+        CustomerRemovalDto queued = manager.startCustomerRemoval(customerId);
+        CustomerRemovalDto repeated = manager.startCustomerRemoval(customerId);
+
+        assertThat(queued.getStatus()).isEqualTo(CustomerRemovalDto.Status.QUEUED);
+        assertThat(repeated.getId()).isEqualTo(queued.getId());
+        assertThat(manager.findCustomerRemoval(queued.getId())).get()
+                .extracting(CustomerRemovalDto::getStatus).isEqualTo(CustomerRemovalDto.Status.QUEUED);
+    }
+
+    @Test
+    void startCustomerRemoval_ofRunningCustomer_returnsRunningRemoval() throws InterruptedException {
+        CustomerRemovalDto started = manager.startCustomerRemoval(blockingCustomerId.toString());
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CustomerRemovalDto repeated = manager.startCustomerRemoval(blockingCustomerId.toString());
+
+        assertThat(repeated.getId()).isEqualTo(started.getId());
+        assertThat(repeated.getStatus()).isEqualTo(CustomerRemovalDto.Status.RUNNING);
+        verify(repository, times(1)).findProductIdsByCustomerId(eq(blockingCustomerId), any(Pageable.class));
+    }
+
+    @Test
+    void startCustomerRemoval_throwsTaskRejectedEx_ifQueueIsFull() throws InterruptedException {
+        manager.startCustomerRemoval(blockingCustomerId.toString());
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        CustomerRemovalDto queued = manager.startCustomerRemoval(UUID.randomUUID().toString());
+        String rejectedCustomerId = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> manager.startCustomerRemoval(rejectedCustomerId))
+                .isInstanceOf(TaskRejectedException.class);
+
+        release.countDown();
+        awaitFinished(queued);
+        CustomerRemovalDto removal = awaitFinished(manager.startCustomerRemoval(rejectedCustomerId));
+        assertThat(removal.getStatus()).isEqualTo(CustomerRemovalDto.Status.DONE);
+    }
+
+    @Test
+    void removal_takesDbTurn_forEveryTransaction() throws InterruptedException {
+        CustomerRemovalDto started = manager.startCustomerRemoval(blockingCustomerId.toString());
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> dbConcurrencyLimit.callInTurn(() -> null))
+                .isInstanceOf(DbConcurrencyLimitExceededException.class);
+
+        release.countDown();
+        assertThat(awaitFinished(started).getStatus()).isEqualTo(CustomerRemovalDto.Status.DONE);
+        assertThat(dbConcurrencyLimit.callInTurn(() -> "turn")).isEqualTo("turn");
+    }
+
+    @Test
+    void startCustomerRemoval_ofRemovedCustomer_startsNewRemoval() throws InterruptedException {
+        release.countDown();
+        String customerId = UUID.randomUUID().toString();
+        CustomerRemovalDto first = awaitFinished(manager.startCustomerRemoval(customerId));
+
+        CustomerRemovalDto second = manager.startCustomerRemoval(customerId);
+
+        assertThat(first.getStatus()).isEqualTo(CustomerRemovalDto.Status.DONE);
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        manager.shutdown();
+    }
+
+
+    private CustomerRemovalDto awaitFinished(CustomerRemovalDto removal) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CustomerRemovalDto current = removal;
+        while ((current.getStatus() == CustomerRemovalDto.Status.QUEUED || current.getStatus() == CustomerRemovalDto.Status.RUNNING)
+               && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            current = manager.findCustomerRemoval(removal.getId()).orElseThrow();
+        }
+        return current;
+    }
+}
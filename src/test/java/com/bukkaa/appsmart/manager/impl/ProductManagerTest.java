@@ -1,19 +1,32 @@
 package com.bukkaa.appsmart.manager.impl;
 
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
+import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.entity.Tombstone;
 import com.bukkaa.appsmart.manager.CustomerManager;
 import com.bukkaa.appsmart.manager.ProductManager;
+import com.bukkaa.appsmart.manager.VersionMismatchException;
 import com.bukkaa.appsmart.mapper.ProductMapper;
+import com.bukkaa.appsmart.repository.EntityVersion;
 import com.bukkaa.appsmart.repository.ProductRepository;
+import com.bukkaa.appsmart.repository.TombstoneRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,13 +40,17 @@ class ProductManagerTest {
     private ProductMapper mapper;
 
     private CustomerManager customerManager;
+    private EntityCacheEvictor cacheEvictor;
+    private TombstoneRepository tombstoneRepository;
 
     @BeforeEach
     void setUp() {
         repository = mock(ProductRepository.class);
         mapper = spy(ProductMapper.class);
         customerManager = mock(CustomerManager.class);
-        manager = new ProductManagerImpl(repository, customerManager, mapper);
+        cacheEvictor = mock(EntityCacheEvictor.class);
+        tombstoneRepository = mock(TombstoneRepository.class);
+        manager = new ProductManagerImpl(repository, customerManager, mapper, cacheEvictor, tombstoneRepository);
     }
 
     @Test
@@ -136,11 +153,263 @@ class ProductManagerTest {
         assertThat(expected.getMessage()).isEqualTo("No Customer found with id = '" + customerId + "'");
     }
 
+    @Test
+    void deleteProduct_evictsProductAndItsCustomer() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setCustomer(customer);
+        when(repository.findById(eq(product.getId()))).thenReturn(Optional.of(product));
+
+        manager.deleteProduct(product.getId().toString());
+
+        verify(repository, times(1)).deleteById(eq(product.getId()));
+        verify(cacheEvictor, times(1)).evictProduct(eq(product.getId()));
+        verify(cacheEvictor, times(1)).evictCustomerOf(eq(customer));
+        verify(tombstoneRepository, times(1)).save(argThat(tombstone -> tombstone.getEntityId().equals(product.getId())
+                                                                        && tombstone.getEntityType() == Tombstone.EntityType.PRODUCT));
+    }
+
+    @Test
+    void createProductForCustomer_evictsCustomer() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        Product product = new Product();
+        when(customerManager.findCustomer(eq(customer.getId().toString()))).thenReturn(Optional.of(customer));
+        when(repository.save(eq(product))).thenReturn(product);
+
+        manager.createProductForCustomer(customer.getId().toString(), product);
+
+        verify(repository, times(1)).save(eq(product));
+        verify(cacheEvictor, times(1)).evictCustomerOf(eq(customer));
+    }
+
+    @Test
+    void createProductsForCustomer_throwsIllegalArgumentEx_ifNoCustomerFound() {
+        String customerId = "some id";
+
+        when(customerManager.findCustomer(eq(customerId))).thenReturn(Optional.empty());
+
+        Exception expected = null;
+        try {
+            manager.createProductsForCustomer(customerId, Stream.of(new Product()));
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(repository, never()).insertAll(any());
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo("No Customer found with id = '" + customerId + "'");
+    }
+
+    @Test
+    void createProductsForCustomer_bindsProductsToCustomer_andEvictsIt() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        List<Product> products = List.of(new Product(), new Product());
+        when(customerManager.findCustomer(eq(customer.getId().toString()))).thenReturn(Optional.of(customer));
+        when(repository.insertAll(any())).thenAnswer(invocation -> (long) invocation.<Stream<Product>>getArgument(0).collect(Collectors.toList()).size());
+
+        long created = manager.createProductsForCustomer(customer.getId().toString(), products.stream());
+
+        assertThat(created).isEqualTo(2);
+        assertThat(products).allSatisfy(product -> {
+            assertThat(product.getCustomer()).isEqualTo(customer);
+            assertThat(product.getCreatedAt()).isNotNull();
+        });
+        verify(customerManager, times(1)).findCustomer(eq(customer.getId().toString()));
+        verify(cacheEvictor, times(1)).evictCustomerOf(eq(customer));
+    }
+
+    @Test
+    void findProducts_returnsResultsInRequestOrder_withOneQuery() {
+        Product first = new Product();
+        first.setId(UUID.randomUUID());
+        Product second = new Product();
+        second.setId(UUID.randomUUID());
+        UUID missingId = UUID.randomUUID();
+        when(repository.findAllById(any())).thenReturn(List.of(first, second));
+
+        List<Optional<Product>> actual = manager.findProducts(List.of(second.getId().toString(),
+                                                                      missingId.toString(),
+                                                                      first.getId().toString(),
+                                                                      second.getId().toString()));
+
+        verify(repository, times(1)).findAllById(eq(Set.of(first.getId(), second.getId(), missingId)));
+        assertThat(actual).containsExactly(Optional.of(second), Optional.empty(), Optional.of(first), Optional.of(second));
+    }
+
+    @Test
+    void findProducts_throwsIllegalArgumentEx_ifTooManyIds() {
+        List<String> ids = IntStream.range(0, 1001)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .collect(Collectors.toList());
+
+        Exception expected = null;
+        try {
+            manager.findProducts(ids);
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(repository, never()).findAllById(any());
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo("At most 1000 ids could be requested at once!");
+    }
+
+    @Test
+    void markProductsDeleted_runsOneUpdate_andEvictsEachProduct() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(repository.markDeletedByIdIn(eq(List.of(first, second)), any())).thenReturn(2);
+
+        int updated = manager.markProductsDeleted(List.of(first.toString(), second.toString()));
+
+        assertThat(updated).isEqualTo(2);
+        verify(repository, times(1)).markDeletedByIdIn(eq(List.of(first, second)), notNull());
+        verify(cacheEvictor, times(1)).evictProduct(eq(first));
+        verify(cacheEvictor, times(1)).evictProduct(eq(second));
+    }
+
+    @Test
+    void markProductsDeleted_throwsIllegalArgumentEx_ifTooManyIds() {
+        List<String> ids = IntStream.range(0, 10_001)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .collect(Collectors.toList());
+
+        Exception expected = null;
+        try {
+            manager.markProductsDeleted(ids);
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(repository, never()).markDeletedByIdIn(any(), any());
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo("At most 10000 ids could be requested at once!");
+    }
+
+    @Test
+    void repriceCustomerProducts_evictsCustomerAndProducts() {
+        UUID customerId = UUID.randomUUID();
+        BigDecimal factor = new BigDecimal("0.9");
+        List<UUID> productIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(repository.repriceByCustomerId(eq(customerId), eq(factor), any())).thenReturn(2);
+        when(repository.findIdsByCustomerId(customerId)).thenReturn(productIds);
+
+        int updated = manager.repriceCustomerProducts(customerId.toString(), factor);
+
+        assertThat(updated).isEqualTo(2);
+        verify(cacheEvictor, times(1)).evictCustomer(eq(customerId));
+        productIds.forEach(productId -> verify(cacheEvictor, times(1)).evictProduct(eq(productId)));
+        verifyNoMoreInteractions(cacheEvictor);
+    }
+
+    @Test
+    void repriceCustomerProducts_throwsIllegalArgumentEx_ifFactorNotPositive() {
+        Exception expected = null;
+        try {
+            manager.repriceCustomerProducts(UUID.randomUUID().toString(), BigDecimal.ZERO);
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(repository, never()).repriceByCustomerId(any(), any(), any());
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo("Price factor must be positive!");
+    }
+
+    @Test
+    void updateProductIfVersion_updatesWithoutReadingFirst() {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setVersion(4);
+        UpdateProductDto updateDto = UpdateProductDto.builder().title("TITLE").build();
+        when(repository.updateIfVersion(eq(product.getId()), eq(3L), eq(updateDto), notNull())).thenReturn(1);
+        when(repository.findById(eq(product.getId()))).thenReturn(Optional.of(product));
+
+        Product updated = manager.updateProduct(product.getId().toString(), 3L, updateDto);
+
+        assertThat(updated).isSameAs(product);
+        verify(repository, never()).findVersionById(any());
+        verify(repository, never()).save(any());
+        verify(cacheEvictor, times(1)).evictProduct(eq(product.getId()));
+    }
+
+    @Test
+    void updateProductIfVersion_throwsVersionMismatchEx_ifVersionDiffers() {
+        UUID productId = UUID.randomUUID();
+        EntityVersion current = mock(EntityVersion.class);
+        when(current.getVersion()).thenReturn(5L);
+        when(repository.updateIfVersion(eq(productId), eq(3L), any(), any())).thenReturn(0);
+        when(repository.findVersionById(eq(productId))).thenReturn(Optional.of(current));
+
+        Exception expected = null;
+        try {
+            manager.updateProduct(productId.toString(), 3L, new UpdateProductDto());
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(cacheEvictor, never()).evictProduct(any());
+        assertThat(expected).isNotNull().isInstanceOf(VersionMismatchException.class);
+        assertThat(expected.getMessage()).isEqualTo(format("Product with id = '%s' has version 5, expected 3!", productId));
+    }
+
+    @Test
+    void updateProductIfVersion_throwsIllegalArgumentEx_ifNoProductFound() {
+        UUID productId = UUID.randomUUID();
+        when(repository.updateIfVersion(eq(productId), anyLong(), any(), any())).thenReturn(0);
+        when(repository.findVersionById(eq(productId))).thenReturn(Optional.empty());
+
+        Exception expected = null;
+        try {
+            manager.updateProduct(productId.toString(), 3L, new UpdateProductDto());
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo(format("Product with id = '%s' not found!", productId));
+    }
+
+    @Test
+    void searchProducts_throwsIllegalArgumentEx_ifPriceRangeInverted() {
+        ProductSearchFilter filter = ProductSearchFilter.builder()
+                .minPrice(BigDecimal.TEN)
+                .maxPrice(BigDecimal.ONE)
+                .build();
+
+        Exception expected = null;
+        try {
+            manager.searchProducts(filter, null, 10);
+        } catch (Exception ex) {
+            expected = ex;
+        }
+
+        verify(repository, never()).search(any(), any(), anyInt());
+        assertThat(expected).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(expected.getMessage()).isEqualTo("Min price must not be greater than max price!");
+    }
+
+    @Test
+    void searchProducts_ignoresBlankCriteria_andFetchesOneExtraRow() {
+        when(repository.search(any(), any(), anyInt())).thenReturn(List.of());
+
+        manager.searchProducts(ProductSearchFilter.builder().title(" ").text("  shoes ").build(), null, 10);
+
+        ProductSearchFilter expectedFilter = ProductSearchFilter.builder().text("shoes").build();
+        verify(repository, times(1)).search(eq(expectedFilter), isNull(), eq(11));
+    }
+
     @AfterEach
     void tearDown() {
         clearAllCaches();
         repository = null;
         manager = null;
         customerManager = null;
+        cacheEvictor = null;
+        tombstoneRepository = null;
     }
 }
\ No newline at end of file
@@ -1,22 +1,41 @@
 package com.bukkaa.appsmart.repository;
 
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.dto.ChangeEntry;
+import com.bukkaa.appsmart.dto.ChangeFeedPage;
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.CustomerDto;
 import com.bukkaa.appsmart.dto.UpdateCustomerDto;
 import com.bukkaa.appsmart.entity.Customer;
+import com.bukkaa.appsmart.entity.Product;
+import com.bukkaa.appsmart.manager.ChangeFeedManager;
 import com.bukkaa.appsmart.manager.CustomerManager;
+import com.bukkaa.appsmart.manager.impl.ChangeFeedManagerImpl;
+import com.bukkaa.appsmart.manager.impl.ChangeFeedProperties;
 import com.bukkaa.appsmart.manager.impl.CustomerManagerImpl;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.spy;
 
 class CustomerJpaTest extends RepositoryBaseTest<CustomerRepository, Customer, UUID> {
@@ -25,10 +44,16 @@ class CustomerJpaTest extends RepositoryBaseTest<CustomerRepository, Customer, U
 
     @Autowired
     private CustomerMapper mapper;
+    @Autowired
+    private EntityCacheEvictor cacheEvictor;
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+    @Autowired
+    private ProductRepository productRepository;
 
     @BeforeEach
     void setUp() {
-        manager = new CustomerManagerImpl(repository, spy(mapper));
+        manager = new CustomerManagerImpl(repository, spy(mapper), cacheEvictor, tombstoneRepository);
     }
 
     @Test
@@ -73,6 +98,61 @@ class CustomerJpaTest extends RepositoryBaseTest<CustomerRepository, Customer, U
         assertThat(result).isNull();
     }
 
+    @Test
+    void removeCustomer_deletesCustomerWithProducts_andRecordsTombstones() {
+        Customer customer = persistCustomer("Removed", Instant.now(), null);
+        Customer other = persistCustomer("Kept", Instant.now(), null);
+        List<Product> products = IntStream.range(0, 3)
+                .mapToObj(i -> persistProduct(customer, "Product #" + i))
+                .collect(Collectors.toList());
+        Product kept = persistProduct(other, "Kept product");
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        manager.removeCustomer(customer.getId().toString());
+
+        assertThat(testEntityManager.find(Customer.class, customer.getId())).isNull();
+        assertThat(productRepository.countByCustomerId(customer.getId())).isZero();
+        assertThat(productRepository.findById(kept.getId())).isPresent();
+        List<UUID> expectedTombstones = new ArrayList<>();
+        expectedTombstones.add(customer.getId());
+        products.forEach(product -> expectedTombstones.add(product.getId()));
+        assertThat(tombstoneRepository.findAllById(expectedTombstones)).hasSize(4);
+    }
+
+    @Test
+    void getCustomerChanges_returnsChangedAndRemovedCustomersInOrderOfChange() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Customer created = persistCustomer("Created", now.minusSeconds(30), null);
+        Customer softDeleted = persistCustomer("Soft deleted", now.minusSeconds(20), now.minusSeconds(10));
+        Customer removed = persistCustomer("Removed", now.minusSeconds(25), null);
+        manager.removeCustomer(removed.getId().toString());
+
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setSettleTime(Duration.ZERO);
+        ChangeFeedManager changeFeed = new ChangeFeedManagerImpl(repository, productRepository, tombstoneRepository, properties);
+
+        ChangeFeedPage<CustomerDto> first = changeFeed.getCustomerChanges(null, null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getItems()).extracting(ChangeEntry::getId, ChangeEntry::isRemoved)
+                .containsExactly(tuple(created.getId().toString(), false), tuple(softDeleted.getId().toString(), false));
+        assertThat(first.getItems().get(1).getItem().isDeleted()).isTrue();
+
+        ChangeFeedPage<CustomerDto> second = changeFeed.getCustomerChanges(null, first.getWatermark(), 2);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getItems()).extracting(ChangeEntry::getId, ChangeEntry::isRemoved)
+                .containsExactly(tuple(removed.getId().toString(), true));
+        assertThat(second.getItems().get(0).getItem()).isNull();
+
+        ChangeFeedPage<CustomerDto> caughtUp = changeFeed.getCustomerChanges(null, second.getWatermark(), 2);
+        assertThat(caughtUp.getItems()).isEmpty();
+        assertThat(caughtUp.getWatermark()).isEqualTo(second.getWatermark());
+
+        ChangeFeedPage<CustomerDto> since = changeFeed.getCustomerChanges(now.minusSeconds(15), null, 10);
+        assertThat(since.getItems()).extracting(ChangeEntry::getId)
+                .containsExactly(softDeleted.getId().toString(), removed.getId().toString());
+    }
+
     @Test
     void getAllCustomers_negative() {
         int page = 0;
@@ -100,6 +180,120 @@ class CustomerJpaTest extends RepositoryBaseTest<CustomerRepository, Customer, U
         assertThat(result).isNotNull().isNotEmpty().hasSize(10);
     }
 
+    @Test
+    void getAllCustomersSliceWithProducts_initializesProducts() {
+        IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setCreatedAt(Timestamp.from(Instant.now()));
+                    customer.setTitle("Customer #" + i);
+                    Product product = new Product();
+                    product.setCustomer(customer);
+                    product.setTitle("Product of customer #" + i);
+                    product.setCreatedAt(Timestamp.from(Instant.now()));
+                    product.setPrice(BigDecimal.ONE);
+                    customer.getProducts().add(product);
+                    return customer;
+                })
+                .forEach(testEntityManager::persist);
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Slice<Customer> expandedSlice = manager.getAllCustomersSliceWithProducts(0, 10);
+        assertThat(expandedSlice.getContent()).hasSize(3)
+                .allMatch(customer -> Hibernate.isInitialized(customer.getProducts()))
+                .allMatch(customer -> customer.getProducts().size() == 1);
+    }
+
+    @Test
+    void getAllCustomerDtosAfter_walksAllPagesOnce() {
+        Timestamp sameCreatedAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        IntStream.range(0, 7)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setCreatedAt(i < 4 ? sameCreatedAt : Timestamp.from(sameCreatedAt.toInstant().plusSeconds(i)));
+                    customer.setTitle("Customer #" + i);
+                    return customer;
+                })
+                .forEach(testEntityManager::persist);
+
+        List<CustomerDto> walked = new ArrayList<>();
+        CursorPage<CustomerDto> page = manager.getAllCustomerDtosAfter(null, 3);
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = manager.getAllCustomerDtosAfter(page.getNextCursor(), 3);
+            walked.addAll(page.getItems());
+        }
+
+        assertThat(walked).extracting(CustomerDto::getId).hasSize(7).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void getAllCustomerDtosAfter_returnsNoCursor_onLastPage() {
+        Customer customer = new Customer();
+        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setTitle("The only Customer");
+        testEntityManager.persist(customer);
+
+        CursorPage<CustomerDto> page = manager.getAllCustomerDtosAfter(null, 1);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getAllCustomerDtosAfter_walksAllCustomersAsDtos() {
+        Timestamp sameCreatedAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<UUID> ids = IntStream.range(0, 5)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setCreatedAt(sameCreatedAt);
+                    customer.setTitle("Customer #" + i);
+                    return testEntityManager.persist(customer).getId();
+                })
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        List<CustomerDto> walked = new ArrayList<>();
+        CursorPage<CustomerDto> page = manager.getAllCustomerDtosAfter(null, 2);
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = manager.getAllCustomerDtosAfter(page.getNextCursor(), 2);
+            walked.addAll(page.getItems());
+        }
+
+        assertThat(walked).extracting(CustomerDto::getId)
+                .containsExactlyInAnyOrderElementsOf(ids.stream().map(UUID::toString).collect(Collectors.toList()));
+        assertThat(walked).allMatch(dto -> dto.getTitle().startsWith("Customer #")
+                                           && sameCreatedAt.equals(dto.getCreatedAt())
+                                           && dto.getProducts() == null);
+    }
+
+    @Test
+    void getAllCustomerDtosSlice_detectsNextPage_inCreationOrder() {
+        Timestamp sameCreatedAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<String> ids = IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setCreatedAt(i < 2 ? sameCreatedAt : Timestamp.from(sameCreatedAt.toInstant().minusSeconds(1)));
+                    customer.setTitle("Customer #" + i);
+                    return testEntityManager.persist(customer);
+                })
+                .sorted(Comparator.comparing(Customer::getCreatedAt).thenComparing(customer -> customer.getId().toString()))
+                .map(customer -> customer.getId().toString())
+                .collect(Collectors.toList());
+
+        Slice<CustomerDto> first = manager.getAllCustomerDtosSlice(0, 2);
+        Slice<CustomerDto> last = manager.getAllCustomerDtosSlice(1, 2);
+
+        assertThat(first.getContent()).extracting(CustomerDto::getId).containsExactlyElementsOf(ids.subList(0, 2));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(CustomerDto::getId).containsExactly(ids.get(2));
+        assertThat(last.hasNext()).isFalse();
+        assertThat(manager.countCustomers()).isEqualTo(3);
+    }
+
     @Test
     void createCustomer() {
         Customer entity = new Customer();
@@ -143,4 +337,61 @@ class CustomerJpaTest extends RepositoryBaseTest<CustomerRepository, Customer, U
         assertThat(updated.isDeleted()).isTrue();
     }
 
-}
\ No newline at end of file
+    @Test
+    void exportCustomersWithProducts_groupsProductsByDetachedCustomer() {
+        Timestamp createdAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<Customer> customers = IntStream.range(0, 4)
+                .mapToObj(i -> {
+                    Customer customer = new Customer();
+                    customer.setTitle("Customer #" + i);
+                    customer.setCreatedAt(Timestamp.from(createdAt.toInstant().plusSeconds(i)));
+                    customer = testEntityManager.persist(customer);
+                    // the last customer has no products at all
+                    for (int j = 0; j < 3 - i; j++) {
+                        Product product = new Product();
+                        product.setCustomer(customer);
+                        product.setTitle("Product #" + i + "." + j);
+                        product.setPrice(BigDecimal.ONE);
+                        product.setCreatedAt(Timestamp.from(createdAt.toInstant().plusSeconds(j)));
+                        testEntityManager.persist(product);
+                    }
+                    return customer;
+                })
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        List<Customer> exported = new ArrayList<>();
+        long exportedCount = manager.exportCustomersWithProducts(customer -> {
+            assertThat(testEntityManager.getEntityManager().contains(customer)).isFalse();
+            exported.add(customer);
+        });
+
+        assertThat(exportedCount).isEqualTo(4);
+        assertThat(exported).extracting(Customer::getId)
+                .containsExactlyElementsOf(customers.stream().map(Customer::getId).collect(Collectors.toList()));
+        for (int i = 0; i < exported.size(); i++) {
+            assertThat(exported.get(i).getProducts()).hasSize(3 - i)
+                    .extracting(Product::getTitle)
+                    .allMatch(title -> title.startsWith("Product #"));
+        }
+    }
+
+    private Product persistProduct(Customer customer, String title) {
+        Product product = new Product();
+        product.setCustomer(customer);
+        product.setTitle(title);
+        product.setCreatedAt(Timestamp.from(Instant.now()));
+        product.setPrice(BigDecimal.ONE);
+        return testEntityManager.persist(product);
+    }
+
+    private Customer persistCustomer(String title, Instant createdAt, Instant modifiedAt) {
+        Customer customer = new Customer();
+        customer.setTitle(title);
+        customer.setCreatedAt(Timestamp.from(createdAt));
+        customer.setModifiedAt(modifiedAt == null ? null : Timestamp.from(modifiedAt));
+        customer.setDeleted(modifiedAt != null);
+        return testEntityManager.persist(customer);
+    }
+}
@@ -1,5 +1,9 @@
 package com.bukkaa.appsmart.repository;
 
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
+import com.bukkaa.appsmart.dto.CursorPage;
+import com.bukkaa.appsmart.dto.ProductDto;
+import com.bukkaa.appsmart.dto.ProductSearchFilter;
 import com.bukkaa.appsmart.dto.UpdateProductDto;
 import com.bukkaa.appsmart.entity.Customer;
 import com.bukkaa.appsmart.entity.Product;
@@ -11,12 +15,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,11 +40,15 @@ class ProductJpaTest extends RepositoryBaseTest<ProductRepository, Product, UUID
     private CustomerManager customerManager;
     @Autowired
     private ProductMapper mapper;
+    @Autowired
+    private EntityCacheEvictor cacheEvictor;
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
 
 
     @BeforeEach
     void setUp() {
-        manager = new ProductManagerImpl(repository, customerManager, spy(mapper));
+        manager = new ProductManagerImpl(repository, customerManager, spy(mapper), cacheEvictor, tombstoneRepository);
     }
 
     @Test
@@ -146,6 +160,126 @@ class ProductJpaTest extends RepositoryBaseTest<ProductRepository, Product, UUID
         assertThat(result).isNotNull().isNotEmpty().hasSize(10);
     }
 
+    @Test
+    void findAllCustomerProductDtosSlice_detectsNextPage_inCreationOrder() {
+        Customer customer = new Customer();
+        customer.setCreatedAt(Timestamp.from(Instant.now()));
+        customer.setTitle("The very big Customer");
+        UUID customerId = testEntityManager.persistAndGetId(customer, UUID.class);
+
+        Timestamp sameCreatedAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<String> ids = IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    Product product = new Product();
+                    product.setCustomer(customer);
+                    product.setTitle("Product #" + i);
+                    product.setCreatedAt(i < 2 ? sameCreatedAt : Timestamp.from(sameCreatedAt.toInstant().minusSeconds(1)));
+                    product.setPrice(BigDecimal.ONE);
+                    return testEntityManager.persist(product);
+                })
+                .sorted(Comparator.comparing(Product::getCreatedAt).thenComparing(product -> product.getId().toString()))
+                .map(product -> product.getId().toString())
+                .collect(Collectors.toList());
+
+        Slice<ProductDto> first = manager.findAllCustomerProductDtosSlice(customerId.toString(), 0, 2);
+        Slice<ProductDto> last = manager.findAllCustomerProductDtosSlice(customerId.toString(), 1, 2);
+
+        assertThat(first.getContent()).extracting(ProductDto::getId).containsExactlyElementsOf(ids.subList(0, 2));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(ProductDto::getId).containsExactly(ids.get(2));
+        assertThat(last.hasNext()).isFalse();
+        assertThat(manager.countCustomerProducts(customerId.toString())).isEqualTo(3);
+    }
+
+    @Test
+    void findAllCustomerProductDtosAfter_walksOnlyCustomerProductsAsDtos() {
+        Timestamp sameCreatedAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        Customer customer = new Customer();
+        customer.setTitle("Customer");
+        customer.setCreatedAt(sameCreatedAt);
+        testEntityManager.persist(customer);
+        Customer anotherCustomer = new Customer();
+        anotherCustomer.setTitle("Another Customer");
+        anotherCustomer.setCreatedAt(sameCreatedAt);
+        testEntityManager.persist(anotherCustomer);
+
+        IntStream.range(0, 6)
+                .mapToObj(i -> {
+                    Product product = new Product();
+                    product.setCustomer(i % 2 == 0 ? customer : anotherCustomer);
+                    product.setTitle("Product #" + i);
+                    product.setDescription("Description #" + i);
+                    product.setCreatedAt(sameCreatedAt);
+                    product.setPrice(BigDecimal.TEN);
+                    return product;
+                })
+                .forEach(testEntityManager::persist);
+
+        List<ProductDto> walked = new ArrayList<>();
+        String customerId = customer.getId().toString();
+        CursorPage<ProductDto> page = manager.findAllCustomerProductDtosAfter(customerId, null, 2);
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = manager.findAllCustomerProductDtosAfter(customerId, page.getNextCursor(), 2);
+            walked.addAll(page.getItems());
+        }
+
+        assertThat(walked).hasSize(3).doesNotHaveDuplicates()
+                .extracting(ProductDto::getTitle)
+                .containsExactlyInAnyOrder("Product #0", "Product #2", "Product #4");
+        assertThat(walked).allMatch(dto -> dto.getId() != null
+                                           && dto.getDescription().startsWith("Description #")
+                                           && dto.getPrice().compareTo(BigDecimal.TEN) == 0);
+
+        Slice<ProductDto> slice = manager.findAllCustomerProductDtosSlice(customerId, 0, 2);
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    void searchProducts_filtersByTitlePrefixPriceAndDeleted() {
+        persistSearchableProduct("Air Jordan 1", "Nike sneakers", "100.00", false);
+        persistSearchableProduct("air max 90", "Nike running shoes", "150.00", false);
+        persistSearchableProduct("Air Force", "Nike classic", "90.00", true);
+        persistSearchableProduct("Stan Smith", "Adidas classic", "80.00", false);
+        persistSearchableProduct("Air_Walk", "Underscore is not a wildcard", "10.00", false);
+        testEntityManager.flush();
+
+        ProductSearchFilter filter = ProductSearchFilter.builder()
+                .title("AIR ")
+                .minPrice(new BigDecimal("95"))
+                .maxPrice(new BigDecimal("200"))
+                .deleted(false)
+                .build();
+        CursorPage<ProductDto> page = manager.searchProducts(filter, null, 10);
+
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getItems()).extracting(ProductDto::getTitle)
+                .containsExactlyInAnyOrder("Air Jordan 1", "air max 90");
+
+        CursorPage<ProductDto> escaped = manager.searchProducts(ProductSearchFilter.builder().title("air_").build(), null, 10);
+        assertThat(escaped.getItems()).extracting(ProductDto::getTitle).containsExactly("Air_Walk");
+    }
+
+    @Test
+    void searchProducts_matchesAllWords_andWalksWithCursor() {
+        IntStream.range(0, 5).forEach(i -> persistSearchableProduct("Shoe #" + i, "Comfortable RUNNING shoes, size " + i, "10.00", false));
+        persistSearchableProduct("Boot", "Comfortable hiking boots", "10.00", false);
+        testEntityManager.flush();
+
+        ProductSearchFilter filter = ProductSearchFilter.builder().text("running, comfortable").build();
+        List<ProductDto> walked = new ArrayList<>();
+        CursorPage<ProductDto> page = manager.searchProducts(filter, null, 2);
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = manager.searchProducts(filter, page.getNextCursor(), 2);
+            walked.addAll(page.getItems());
+        }
+
+        assertThat(walked).hasSize(5).doesNotHaveDuplicates()
+                .allMatch(dto -> dto.getTitle().startsWith("Shoe #"));
+    }
+
     @Test
     void createProductForCustomer() {
         Customer customer = new Customer();
@@ -179,4 +313,117 @@ class ProductJpaTest extends RepositoryBaseTest<ProductRepository, Product, UUID
         assertThat(updatedCustomer.getProducts()).isNotNull().hasSize(1)
                 .containsExactly(actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    void createProductsForCustomer_persistsWholeStream() {
+        Customer customer = new Customer();
+        customer.setTitle("The very big Customer");
+        customer.setDeleted(false);
+        customerManager.createCustomer(customer);
+
+        long created = manager.createProductsForCustomer(customer.getId().toString(),
+                IntStream.range(0, 1_234)
+                        .mapToObj(i -> {
+                            Product product = new Product();
+                            product.setTitle("Product #" + i);
+                            product.setPrice(BigDecimal.TEN);
+                            product.setDeleted(false);
+                            return product;
+                        }));
+
+        assertThat(created).isEqualTo(1_234);
+        assertThat(repository.countByCustomerId(customer.getId())).isEqualTo(1_234);
+    }
+
+    @Test
+    void markProductsDeleted_updatesOnlyRequestedActiveProducts() {
+        List<Product> products = IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    Product product = new Product();
+                    product.setTitle("Product #" + i);
+                    product.setPrice(BigDecimal.ONE);
+                    product.setDeleted(i == 2);
+                    product.setCreatedAt(Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+                    return testEntityManager.persist(product);
+                })
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+
+        int updated = manager.markProductsDeleted(List.of(
+                products.get(0).getId().toString(),
+                products.get(2).getId().toString(),
+                UUID.randomUUID().toString()));
+
+        assertThat(updated).isEqualTo(1);
+        Product marked = repository.findById(products.get(0).getId()).orElseThrow();
+        assertThat(marked.isDeleted()).isTrue();
+        assertThat(marked.getModifiedAt()).isNotNull();
+        assertThat(repository.findById(products.get(1).getId()).orElseThrow().isDeleted()).isFalse();
+        assertThat(repository.findById(products.get(2).getId()).orElseThrow().getModifiedAt()).isNull();
+    }
+
+    @Test
+    void repriceCustomerProducts_updatesOnlyCustomerActiveProducts() {
+        Customer customer = new Customer();
+        customer.setTitle("Customer");
+        customerManager.createCustomer(customer);
+        Customer other = new Customer();
+        other.setTitle("Other Customer");
+        customerManager.createCustomer(other);
+
+        Product active = persistProduct(customer, "Active", false);
+        Product deleted = persistProduct(customer, "Deleted", true);
+        Product foreign = persistProduct(other, "Foreign", false);
+
+        int updated = manager.repriceCustomerProducts(customer.getId().toString(), new BigDecimal("1.1"));
+
+        assertThat(updated).isEqualTo(1);
+        Product repriced = repository.findById(active.getId()).orElseThrow();
+        assertThat(repriced.getPrice()).isEqualByComparingTo("11.00");
+        assertThat(repriced.getModifiedAt()).isNotNull();
+        assertThat(repository.findById(deleted.getId()).orElseThrow().getPrice()).isEqualByComparingTo(BigDecimal.TEN);
+        assertThat(repository.findById(foreign.getId()).orElseThrow().getPrice()).isEqualByComparingTo(BigDecimal.TEN);
+
+        assertThat(manager.markCustomerProductsDeleted(customer.getId().toString())).isEqualTo(1);
+        assertThat(repository.findById(active.getId()).orElseThrow().isDeleted()).isTrue();
+        assertThat(repository.findById(foreign.getId()).orElseThrow().isDeleted()).isFalse();
+    }
+
+
+    @Test
+    void updateIfVersion_updatesOnlyExpectedVersion() {
+        Product product = persistProduct(null, "Product", false);
+        assertThat(product.getVersion()).isZero();
+
+        UpdateProductDto updateDto = UpdateProductDto.builder().price(BigDecimal.ONE).build();
+        assertThat(repository.updateIfVersion(product.getId(), 1, updateDto, Timestamp.from(Instant.now()))).isZero();
+        assertThat(repository.updateIfVersion(product.getId(), 0, updateDto, Timestamp.from(Instant.now()))).isEqualTo(1);
+
+        Product updated = repository.findById(product.getId()).orElseThrow();
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getPrice()).isEqualByComparingTo(BigDecimal.ONE);
+        assertThat(updated.getTitle()).isEqualTo("Product");
+        assertThat(repository.findVersionById(product.getId()))
+                .hasValueSatisfying(version -> assertThat(version.getVersion()).isEqualTo(1));
+    }
+
+    private Product persistProduct(Customer customer, String title, boolean deleted) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(BigDecimal.TEN);
+        product.setDeleted(deleted);
+        product.setCustomer(customer);
+        product.setCreatedAt(Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+        return testEntityManager.persistFlushFind(product);
+    }
+
+    private void persistSearchableProduct(String title, String description, String price, boolean deleted) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setDescription(description);
+        product.setPrice(new BigDecimal(price));
+        product.setDeleted(deleted);
+        product.setCreatedAt(Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+        testEntityManager.persist(product);
+    }
+}
@@ -1,5 +1,6 @@
 package com.bukkaa.appsmart.repository;
 
+import com.bukkaa.appsmart.cache.EntityCacheEvictor;
 import com.bukkaa.appsmart.manager.CustomerManager;
 import com.bukkaa.appsmart.manager.impl.CustomerManagerImpl;
 import com.bukkaa.appsmart.mapper.CustomerMapper;
@@ -9,6 +10,7 @@ import com.bukkaa.appsmart.mapper.ProductMapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
@@ -19,8 +21,15 @@ public class RepositoryTestConfiguration {
 
     @Bean
     public CustomerManager customerManager(@Autowired CustomerRepository customerRepository,
-                                           @Autowired CustomerMapper customerMapper) {
-        return new CustomerManagerImpl(customerRepository, customerMapper);
+                                           @Autowired CustomerMapper customerMapper,
+                                           @Autowired EntityCacheEvictor cacheEvictor,
+                                           @Autowired TombstoneRepository tombstoneRepository) {
+        return new CustomerManagerImpl(customerRepository, customerMapper, cacheEvictor, tombstoneRepository);
+    }
+
+    @Bean
+    public EntityCacheEvictor cacheEvictor() {
+        return new EntityCacheEvictor(new NoOpCacheManager());
     }
 
     @Bean
@@ -0,0 +1,65 @@
+package com.bukkaa.appsmart.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenServiceTest {
+
+    private JwtTokenServiceImpl tokenService;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = newTokenService("theSecretKey", 60_000);
+    }
+
+    @Test
+    void parseClaims_returnsSubject_ofValidToken() {
+        String token = tokenService.generateToken("test");
+
+        Claims claims = tokenService.parseClaims(token);
+
+        assertThat(claims.getSubject()).isEqualTo("test");
+    }
+
+    @Test
+    void parseClaims_parsesTokenOnce_whileNotExpired() {
+        String token = tokenService.generateToken("test");
+
+        Claims first = tokenService.parseClaims(token);
+        Claims second = tokenService.parseClaims(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseClaims_throws_ifSignedWithAnotherSecret() {
+        String foreignToken = newTokenService("anotherSecret", 60_000).generateToken("test");
+
+        assertThatThrownBy(() -> tokenService.parseClaims(foreignToken)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> tokenService.parseClaims(foreignToken)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void parseClaims_throws_ifTokenExpired() {
+        String expiredToken = newTokenService("theSecretKey", -1_000).generateToken("test");
+
+        assertThatThrownBy(() -> tokenService.parseClaims(expiredToken)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+
+    private static JwtTokenServiceImpl newTokenService(String secret, long expirationMs) {
+        JwtTokenServiceImpl service = new JwtTokenServiceImpl();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "expirationMs", expirationMs);
+        ReflectionTestUtils.setField(service, "cacheSize", 100L);
+        service.initVerifiedTokensCache();
+        return service;
+    }
+}